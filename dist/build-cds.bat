@@ -0,0 +1,38 @@
+@echo off
+rem build-cds.bat - record the class data sharing archive shipped with the .exe.
+rem
+rem Run once after every jpackage build (needs C:\javafx-sdk-21.0.7, like the .exe).
+rem The launcher starts with -XX:ArchiveClassesAtExit and -Dapp.cds.training=true,
+rem so the program starts up fully, preloads its screens and exits by itself. The
+rem classes it loaded (JDK, JavaFX, PDFBox, sqlite-jdbc, the app) are written to
+rem app\RetailBillingSystem.jsa, which installed copies only read
+rem (-XX:SharedArchiveFile in the .cfg). The run uses a throwaway user folder, so
+rem no real bills or settings are touched.
+
+setlocal
+set APP=%~dp0RetailBillingSystem\app
+set CFG=%APP%\RetailBillingSystem.cfg
+set JSA=%APP%\RetailBillingSystem.jsa
+set TRAINING_HOME=%TEMP%\RetailBillingSystem-cds
+
+if exist "%JSA%" del /q "%JSA%"
+if exist "%TRAINING_HOME%" rmdir /s /q "%TRAINING_HOME%"
+mkdir "%TRAINING_HOME%"
+
+rem the archive cannot be read and written in the same run: train without the read option
+copy /y "%CFG%" "%CFG%.bak" >nul
+findstr /v /c:"SharedArchiveFile" "%CFG%.bak" > "%CFG%"
+
+set JAVA_TOOL_OPTIONS=-XX:ArchiveClassesAtExit="%JSA%" -Dapp.cds.training=true -Duser.home="%TRAINING_HOME%"
+"%~dp0RetailBillingSystem\RetailBillingSystem.exe"
+set JAVA_TOOL_OPTIONS=
+
+move /y "%CFG%.bak" "%CFG%" >nul
+rmdir /s /q "%TRAINING_HOME%"
+
+if not exist "%JSA%" (
+    echo CDS archive was not created: see the output above.
+    exit /b 1
+)
+echo Created %JSA%
+endlocal
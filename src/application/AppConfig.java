@@ -0,0 +1,100 @@
+package application;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * AppConfig - small key/value settings store.
+ *
+ * Settings live in "app.properties" next to the runtime DB (user folder) so they survive
+ * reinstalls of the EXE. Any key can be overridden on the command line with -Drbs.<key>=value,
+ * which is handy for the jpackage .cfg file or for a one-off run.
+ */
+public final class AppConfig {
+
+    private static final Logger LOGGER = Logger.getLogger(AppConfig.class.getName());
+    private static final String FILE_NAME = "app.properties";
+    private static final String SYSTEM_PREFIX = "rbs.";
+
+    private static final Properties PROPS = new Properties();
+
+    static {
+        Path file = getConfigFile();
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                PROPS.load(in);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not read settings from " + file, e);
+            }
+        }
+    }
+
+    private AppConfig() {}
+
+    public static Path getConfigFile() {
+        return DBConnection.getAppDataDir().resolve(FILE_NAME);
+    }
+
+    /**
+     * Return the value for key (system property wins over the settings file), or def if unset.
+     */
+    public static synchronized String get(String key, String def) {
+        String sys = System.getProperty(SYSTEM_PREFIX + key);
+        if (sys != null && !sys.isBlank()) return sys.trim();
+        String v = PROPS.getProperty(key);
+        return (v == null || v.isBlank()) ? def : v.trim();
+    }
+
+    public static boolean getBoolean(String key, boolean def) {
+        String v = get(key, null);
+        return v == null ? def : Boolean.parseBoolean(v);
+    }
+
+    public static int getInt(String key, int def) {
+        String v = get(key, null);
+        if (v == null) return def;
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            LOGGER.warning("Setting " + key + " is not a number: " + v);
+            return def;
+        }
+    }
+
+    public static long getLong(String key, long def) {
+        String v = get(key, null);
+        if (v == null) return def;
+        try {
+            return Long.parseLong(v);
+        } catch (NumberFormatException e) {
+            LOGGER.warning("Setting " + key + " is not a number: " + v);
+            return def;
+        }
+    }
+
+    /**
+     * Store a value and write the settings file (used for things the app remembers on its own).
+     */
+    public static synchronized void set(String key, String value) {
+        if (value == null) {
+            PROPS.remove(key);
+        } else {
+            PROPS.setProperty(key, value);
+        }
+        Path file = getConfigFile();
+        try {
+            Files.createDirectories(file.getParent());
+            try (OutputStream out = Files.newOutputStream(file)) {
+                PROPS.store(out, "Retail Billing System settings");
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not save settings to " + file, e);
+        }
+    }
+}
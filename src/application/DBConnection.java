@@ -9,6 +9,8 @@ import java.sql.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import util.BillHashChain;
+
 /**
  * DBConnection (EXE/fat-JAR ready):
  * - Copies template DB from resources to user folder if missing
@@ -27,10 +29,30 @@ public class DBConnection {
     // Path inside the JAR where template DB resides
     private static final String TEMPLATE_DB_RESOURCE = "/database/retailshop.db";
 
+    // Schema version kept in PRAGMA user_version; add a step to migrate() when bumping it
+    private static final int SCHEMA_VERSION = 2;
+
+    // Last time a DAO asked for a connection (drives idle-time maintenance)
+    private static volatile long lastActivityNanos = System.nanoTime();
+
         public static Path getRuntimeDbPath() {
         // USER_DB_FILE in your class is a String like "<user.home>/RetailBillingSystem/retailshop.db"
         return Paths.get(USER_DB_FILE);
     }
+
+    /**
+     * Folder holding the runtime DB and the other per-user files (settings, logs, caches).
+     */
+    public static Path getAppDataDir() {
+        return Paths.get(USER_DB_FOLDER);
+    }
+
+    /**
+     * Create the tables on a connection that is NOT the runtime DB (e.g. a DB being rebuilt from backup).
+     */
+    public static void createSchema(Connection connection) throws SQLException {
+        createTables(connection);
+    }
     static {
         try {
             // Force load SQLite driver for fat JAR
@@ -57,9 +79,25 @@ public class DBConnection {
      * Return a NEW connection pointing to the writable DB in user folder
      */
     public static Connection getConnection() throws SQLException {
+        lastActivityNanos = System.nanoTime();
         return DriverManager.getConnection("jdbc:sqlite:" + USER_DB_FILE);
     }
 
+    /**
+     * Same as getConnection() but not counted as user activity.
+     * For background work (maintenance, snapshots, status reads) that must not reset the idle timer.
+     */
+    public static Connection getBackgroundConnection() throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + USER_DB_FILE);
+    }
+
+    /**
+     * Milliseconds since the last DAO call opened a connection.
+     */
+    public static long getIdleMillis() {
+        return (System.nanoTime() - lastActivityNanos) / 1_000_000L;
+    }
+
     /**
      * Ensure DB exists in writable location; copy template if missing, then bootstrap tables
      */
@@ -90,6 +128,7 @@ public class DBConnection {
 
             stmt.execute("PRAGMA foreign_keys = ON;");
             createTables(conn);
+            migrate(conn);
             LOGGER.info("SQLite database initialized at " + USER_DB_FILE);
         }
     }
@@ -97,7 +136,7 @@ public class DBConnection {
     /**
      * Create tables if missing (same as before)
      */
-    private void createTables(Connection connection) throws SQLException {
+    private static void createTables(Connection connection) throws SQLException {
         String createBuyersTable =
                 "CREATE TABLE IF NOT EXISTS Buyers (" +
                         "buyer_id INTEGER PRIMARY KEY AUTOINCREMENT," +
@@ -114,6 +153,15 @@ public class DBConnection {
                         "FOREIGN KEY (buyer_id) REFERENCES Buyers(buyer_id)" +
                         ");";
 
+        String createMaintenanceLogTable =
+                "CREATE TABLE IF NOT EXISTS MaintenanceLog (" +
+                        "run_id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                        "run_at TEXT NOT NULL," +
+                        "duration_ms INTEGER NOT NULL," +
+                        "bytes_reclaimed INTEGER NOT NULL," +
+                        "details TEXT" +
+                        ");";
+
         String createBillItemsTable =
                 "CREATE TABLE IF NOT EXISTS BillItems (" +
                         "item_id INTEGER PRIMARY KEY AUTOINCREMENT," +
@@ -126,10 +174,12 @@ public class DBConnection {
 
         try (PreparedStatement ps1 = connection.prepareStatement(createBuyersTable);
              PreparedStatement ps2 = connection.prepareStatement(createBillsTable);
-             PreparedStatement ps3 = connection.prepareStatement(createBillItemsTable)) {
+             PreparedStatement ps3 = connection.prepareStatement(createBillItemsTable);
+             PreparedStatement ps4 = connection.prepareStatement(createMaintenanceLogTable)) {
             ps1.execute();
             ps2.execute();
             ps3.execute();
+            ps4.execute();
         }
 
         // Optional: add buyer_id column if older DB (ignore errors)
@@ -137,5 +187,52 @@ public class DBConnection {
             alter.execute("ALTER TABLE Bills ADD COLUMN buyer_id INTEGER;");
         } catch (SQLException ignored) {
         }
+
+        // Hash chain column (see BillHashChain); ignore "duplicate column"
+        try (Statement alter = connection.createStatement()) {
+            alter.execute("ALTER TABLE Bills ADD COLUMN bill_hash TEXT;");
+        } catch (SQLException ignored) {
+        }
+    }
+
+    /**
+     * Bring an existing DB file up to SCHEMA_VERSION (one step per version, never repeated).
+     */
+    private static void migrate(Connection connection) throws SQLException {
+        int version;
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA user_version;")) {
+            version = rs.next() ? rs.getInt(1) : 0;
+        }
+        if (version >= SCHEMA_VERSION) return;
+
+        try (Statement st = connection.createStatement()) {
+            if (version < 1) {
+                // v1: incremental auto-vacuum (only takes effect after a full VACUUM) + WAL journal,
+                // so idle maintenance can reclaim free pages and checkpoint without rewriting the file
+                LOGGER.info("Migrating database to v1 (auto_vacuum=INCREMENTAL, WAL)...");
+                st.execute("PRAGMA auto_vacuum = INCREMENTAL;");
+                st.execute("VACUUM;");
+                st.execute("PRAGMA journal_mode = WAL;");
+                st.execute("PRAGMA user_version = 1;");
+            }
+            if (version < 2) {
+                // v2: hash chain over existing bills + item index for per-bill range scans
+                LOGGER.info("Migrating database to v2 (bill hash chain)...");
+                st.execute("CREATE INDEX IF NOT EXISTS idx_billitems_bill ON BillItems(bill_id, item_id);");
+                boolean previousAutoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try {
+                    BillHashChain.sealMissing(connection);
+                    st.execute("PRAGMA user_version = 2;");
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(previousAutoCommit);
+                }
+            }
+        }
     }
 }
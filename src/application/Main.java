@@ -1,15 +1,62 @@
 package application;
 
+import dao.StorageProvider;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import util.ContinuousBackup;
+import util.DBMaintenance;
+import util.DraftJournal;
+import util.PrinterRegistry;
 import util.SceneManager;
 
+import java.time.Instant;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Main - application entry point.
+ *
+ * Startup is split so a window appears at once: the FX thread only shows a small splash, the
+ * storage bootstrap (DB copy, schema check) and warming of the heavy classes (PDFBox, JDBC, DAOs)
+ * run on a background thread, and the main menu replaces the splash when they are done.
+ * Each phase is logged with its time since JVM start ("Startup: ...").
+ *
+ * With -Dapp.cds.training=true the program exits on its own once every screen is preloaded:
+ * dist/build-cds.bat uses this run to record the class data sharing archive shipped with the .exe.
+ */
 public class Main extends Application {
 
+    private static final Logger LOGGER = Logger.getLogger(Main.class.getName());
+
+    // build-time training run for the CDS archive: start up fully, then exit
+    public static final String KEY_CDS_TRAINING = "app.cds.training";
+
+    // loaded during the splash so the first bill, save or PDF does not pay for class loading
+    private static final String[] WARM_CLASSES = {
+            "dao.BillDAO",
+            "util.PDFGenerator",
+            "util.EscPosReceipt",
+            "org.apache.pdfbox.pdmodel.PDDocument",
+            "org.apache.pdfbox.pdmodel.PDPageContentStream",
+            "org.apache.pdfbox.pdmodel.font.PDType1Font",
+            "org.apache.pdfbox.pdfwriter.COSWriter"
+    };
+
+    private static final long JVM_START = ProcessHandle.current().info().startInstant()
+            .map(Instant::toEpochMilli).orElse(System.currentTimeMillis());
+
     @Override
     public void start(Stage primaryStage) {
-        // Initialize DB (Phase 1) — tables will be verified/created there
-        DBConnection.getInstance();
+        logPhase("FX toolkit ready");
 
         // Register primary stage for scene switching
         SceneManager.setPrimaryStage(primaryStage);
@@ -17,13 +64,117 @@ public class Main extends Application {
         // Set window title
         primaryStage.setTitle("Retail Billing System");
 
-        // Show Main Menu on startup
+        // Splash first: the window is up before any disk or DB work
+        primaryStage.setScene(splashScene());
+        primaryStage.show();
+        logPhase("splash shown");
+
+        Task<Void> bootstrap = new Task<>() {
+            @Override
+            protected Void call() {
+                // Storage backend is chosen once here (storage.backend, default sqlite)
+                StorageProvider.get();
+
+                if (StorageProvider.usesDatabase()) {
+                    // Initialize DB (Phase 1) — tables will be verified/created there
+                    DBConnection.getInstance();
+
+                    // Continuous backup to the mirror folder (no-op unless configured)
+                    ContinuousBackup.start();
+
+                    // ANALYZE / incremental VACUUM / checkpoint while the counter is idle
+                    DBMaintenance.start();
+                }
+                logPhase("storage ready");
+
+                // replay the Create Bill autosave, to offer an interrupted bill back
+                DraftJournal.get();
+
+                warmClasses();
+                logPhase("classes warmed");
+                return null;
+            }
+        };
+
+        bootstrap.setOnSucceeded(e -> showMainMenu());
+        bootstrap.setOnFailed(e -> {
+            LOGGER.log(Level.SEVERE, "Startup failed", bootstrap.getException());
+            Alert a = new Alert(Alert.AlertType.ERROR,
+                    "Startup failed: " + bootstrap.getException().getMessage(), ButtonType.OK);
+            a.setHeaderText(null);
+            a.showAndWait();
+            showMainMenu(); // the screens report their own errors from here on
+        });
+
+        // Find installed printers in the background so print dialogs open instantly
+        PrinterRegistry.start();
+
+        Thread t = new Thread(bootstrap, "startup");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void showMainMenu() {
+        // Show Main Menu once storage is up
         SceneManager.showScene("MainMenu.fxml");
+        logPhase("main menu shown");
 
-        primaryStage.show();
+        // a bill was being entered when the program last closed (crash, power cut)
+        DraftJournal draft = DraftJournal.get();
+        if (draft.hasDraft()) {
+            Alert ask = new Alert(Alert.AlertType.CONFIRMATION,
+                    "An unsaved bill (" + draft.lines().size() + " line(s)) was recovered from the last session.\n"
+                            + "Continue entering it?", ButtonType.YES, ButtonType.NO);
+            ask.setHeaderText(null);
+            ask.setTitle("Recover bill");
+            ButtonType answer = ask.showAndWait().orElse(ButtonType.CANCEL);
+            if (answer == ButtonType.YES) {
+                SceneManager.showScene("CreateBill.fxml"); // picks the draft up
+            } else if (answer == ButtonType.NO) {
+                draft.clear();
+            }
+        }
+
+        // parse the other screens while the user looks at the menu
+        SceneManager.preload("CreateBill.fxml", "CheckRecords.fxml", "PrintQueue.fxml", "ViewBill.fxml")
+                .thenRun(() -> {
+                    if (Boolean.getBoolean(KEY_CDS_TRAINING)) {
+                        logPhase("training run done");
+                        Platform.exit();
+                    }
+                });
+    }
+
+    private static Scene splashScene() {
+        Label title = new Label("Retail Billing System");
+        title.setStyle("-fx-font-size: 18px; -fx-font-weight: bold;");
+        ProgressIndicator progress = new ProgressIndicator();
+        progress.setPrefSize(40, 40);
+        Label status = new Label("Starting...");
+
+        VBox box = new VBox(16, title, progress, status);
+        box.setStyle("-fx-alignment: center;");
+        box.setPadding(new Insets(40));
+        return new Scene(box, 420, 260);
+    }
+
+    private static void warmClasses() {
+        ClassLoader cl = Main.class.getClassLoader();
+        for (String name : WARM_CLASSES) {
+            try {
+                Class.forName(name, true, cl);
+            } catch (ClassNotFoundException | LinkageError e) {
+                LOGGER.log(Level.FINE, "Could not preload " + name, e);
+            }
+        }
+    }
+
+    private static void logPhase(String phase) {
+        LOGGER.info("Startup: " + phase + " at " + (System.currentTimeMillis() - JVM_START) + " ms");
     }
 
     public static void main(String[] args) {
+        logPhase("main()");
         launch(args);
     }
 }
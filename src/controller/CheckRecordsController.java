@@ -1,25 +1,44 @@
 package controller;
 
 import dao.BillDAO;
+import dao.BillSearch;
 import model.Bill;
 import model.BillItem;
 import model.Buyer;
+import util.BulkPdfExporter;
+import util.NumberFormatter;
+import util.PDFRenderContext;
 import util.SceneManager;
-import javafx.beans.property.SimpleStringProperty;
+import util.TextRow;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.stage.FileChooser;
+import javafx.util.Duration;
 
+import java.io.File;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Controller for CheckRecords screen (read-only).
  */
-public class CheckRecordsController {
+public class CheckRecordsController implements SceneManager.Reusable {
 
     @FXML private TextField txtBillNumber;
     @FXML private TextField txtBuyerName;
@@ -28,12 +47,16 @@ public class CheckRecordsController {
     @FXML private Button btnSearch;
     @FXML private Button btnReset;
     @FXML private Button btnBack;
+    @FXML private Button btnExportAll;
+    @FXML private Button btnCancelExport;
+    @FXML private ProgressBar pbExport;
+    @FXML private Label lblExport;
 
-    @FXML private TableView<Bill> tblBills;
-    @FXML private TableColumn<Bill, String> colBillId;
-    @FXML private TableColumn<Bill, String> colBillDate;
-    @FXML private TableColumn<Bill, String> colBuyer;
-    @FXML private TableColumn<Bill, String> colGrandTotal;
+    @FXML private TableView<TextRow<Bill>> tblBills;
+    @FXML private TableColumn<TextRow<Bill>, TextRow<Bill>> colBillId;
+    @FXML private TableColumn<TextRow<Bill>, TextRow<Bill>> colBillDate;
+    @FXML private TableColumn<TextRow<Bill>, TextRow<Bill>> colBuyer;
+    @FXML private TableColumn<TextRow<Bill>, TextRow<Bill>> colGrandTotal;
 
     @FXML private Label lblBuyerName;
     @FXML private Label lblBuyerPhone;
@@ -41,83 +64,98 @@ public class CheckRecordsController {
     @FXML private Label lblDiscountAmount;
     @FXML private Label lblGrandTotal;
 
-    @FXML private TableView<BillItem> tblItems;
-    @FXML private TableColumn<BillItem, String> colItemProduct;
-    @FXML private TableColumn<BillItem, String> colItemQty;
-    @FXML private TableColumn<BillItem, String> colItemPrice;
-    @FXML private TableColumn<BillItem, String> colItemTotal;
+    @FXML private TableView<TextRow<BillItem>> tblItems;
+    @FXML private TableColumn<TextRow<BillItem>, TextRow<BillItem>> colItemProduct;
+    @FXML private TableColumn<TextRow<BillItem>, TextRow<BillItem>> colItemQty;
+    @FXML private TableColumn<TextRow<BillItem>, TextRow<BillItem>> colItemPrice;
+    @FXML private TableColumn<TextRow<BillItem>, TextRow<BillItem>> colItemTotal;
 
-    private final ObservableList<Bill> bills = FXCollections.observableArrayList();
-    private final ObservableList<BillItem> items = FXCollections.observableArrayList();
+    // rows carry their cell texts, formatted once on the loading thread (see TextRow)
+    private final ObservableList<TextRow<Bill>> bills = FXCollections.observableArrayList();
+    private final ObservableList<TextRow<BillItem>> items = FXCollections.observableArrayList();
+
+    /** A loaded bill with its item rows ready for the table. */
+    private record Details(Bill bill, List<TextRow<BillItem>> itemRows) {}
 
     private final BillDAO billDAO = new BillDAO();
 
+    private Task<Integer> exportTask;
+
+    // live search: ~150 ms after the last filter change; each query cancels the previous one
+    private static final Duration SEARCH_DEBOUNCE = Duration.millis(150);
+    private final PauseTransition liveSearch = new PauseTransition(SEARCH_DEBOUNCE);
+    private BillSearch currentSearch;
+
+    // bill details: loaded off the FX thread, the selection's neighbours prefetched into a small
+    // LRU cache (saved bills never change, so cached details never go stale)
+    private static final int PREFETCH_NEIGHBOURS = 2;
+    private static final int DETAIL_CACHE_SIZE = 32;
+    private final Map<Integer, Details> detailCache = new LinkedHashMap<>(DETAIL_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Details> eldest) {
+            return size() > DETAIL_CACHE_SIZE;
+        }
+    };
+    private final Map<Integer, Task<Details>> detailLoads = new HashMap<>();
+    private int selectedBillId = -1;
+
+    private static final ExecutorService DETAIL_LOADER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "records-details");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // queries run here, in order; a cancelled one ends at once, so the next starts right away
+    private static final ExecutorService SEARCH_RUNNER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "records-search");
+        t.setDaemon(true);
+        return t;
+    });
+
     private final DateTimeFormatter displayDtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     @FXML
     private void initialize() {
-        // Table columns (Bill)
-colBillId.setCellValueFactory(c ->
-    new SimpleStringProperty(String.valueOf(c.getValue().getId()))
-);
-
-colBillDate.setCellValueFactory(c ->
-    new SimpleStringProperty(
-        c.getValue().getBillDate() == null ? "" : c.getValue().getBillDate()
-    )
-);
-
-colBuyer.setCellValueFactory(c -> {
-    String name = (c.getValue().getBuyer() == null)
-            ? ""
-            : c.getValue().getBuyer().getName();
-    return new SimpleStringProperty(name == null ? "" : name);
-});
-
-colGrandTotal.setCellValueFactory(c ->
-    new SimpleStringProperty(String.format("%.2f", c.getValue().getGrandTotal()))
-);
-
-
+        // Table columns (Bill): text formatted per row when loaded, numeric sort on id and total
+        TextRow.bind(colBillId, 0, Comparator.comparingInt(Bill::getId));
+        TextRow.bind(colBillDate, 1);
+        TextRow.bind(colBuyer, 2);
+        TextRow.bind(colGrandTotal, 3, Comparator.comparingDouble(Bill::getGrandTotal));
         tblBills.setItems(bills);
 
-       colItemProduct.setCellValueFactory(c ->
-    new SimpleStringProperty(c.getValue().getProductName())
-);
-
-colItemQty.setCellValueFactory(c ->
-    new SimpleStringProperty(String.format("%.2f", c.getValue().getQuantity()))
-);
-
-colItemPrice.setCellValueFactory(c ->
-    new SimpleStringProperty(String.format("%.2f", c.getValue().getUnitPrice()))
-);
-
-colItemTotal.setCellValueFactory(c ->
-    new SimpleStringProperty(String.format("%.2f", c.getValue().getItemTotal()))
-);
-
-
+        TextRow.bind(colItemProduct, 0);
+        TextRow.bind(colItemQty, 1, Comparator.comparingDouble(BillItem::getQuantity));
+        TextRow.bind(colItemPrice, 2, Comparator.comparingDouble(BillItem::getUnitPrice));
+        TextRow.bind(colItemTotal, 3, Comparator.comparingDouble(BillItem::getItemTotal));
         tblItems.setItems(items);
 
         // Load all bills initially
         loadBills(null, null, null, null);
 
+        // search as you type: every filter change restarts the debounce, the query runs when
+        // typing pauses
+        liveSearch.setOnFinished(ev -> search());
+        txtBillNumber.textProperty().addListener((obs, o, n) -> liveSearch.playFromStart());
+        txtBuyerName.textProperty().addListener((obs, o, n) -> liveSearch.playFromStart());
+        dpFrom.valueProperty().addListener((obs, o, n) -> liveSearch.playFromStart());
+        dpTo.valueProperty().addListener((obs, o, n) -> liveSearch.playFromStart());
+
         // Selection listener
         tblBills.getSelectionModel().selectedItemProperty().addListener((obs, old, sel) -> {
             if (sel != null) {
-                showBillDetails(sel);
+                selectBill(sel.item());
             } else {
+                selectedBillId = -1;
                 clearDetails();
             }
         });
 
                 // double-click row to open full view in separate screen
         tblBills.setRowFactory(tv -> {
-            TableRow<Bill> row = new TableRow<>();
+            TableRow<TextRow<Bill>> row = new TableRow<>();
             row.setOnMouseClicked(evt -> {
                 if (evt.getClickCount() == 2 && !row.isEmpty()) {
-                    Bill b = row.getItem();
+                    Bill b = row.getItem().item();
                     // open ViewBill scene and pass id
                     util.SceneManager.showViewBill(b.getId());
                 }
@@ -127,48 +165,183 @@ colItemTotal.setCellValueFactory(c ->
 
     }
 
+    /**
+     * Search with the current filters: cancels the search still running, if any, and streams the
+     * new results into the table (first batch replaces the list, later ones append).
+     * A bill number that is not an integer shows nothing instead of an error while typing.
+     */
+    private void search() {
+        liveSearch.stop();
+        if (currentSearch != null) currentSearch.cancel();
+
+        Integer billId = null;
+        String billText = txtBillNumber.getText();
+        if (billText != null && !billText.isBlank()) {
+            try {
+                billId = Integer.parseInt(billText.trim());
+            } catch (NumberFormatException ex) {
+                currentSearch = null;
+                bills.clear();
+                clearDetails();
+                return;
+            }
+        }
+        loadBills(billId, txtBuyerName.getText(), dpFrom.getValue(), dpTo.getValue());
+    }
+
     private void loadBills(Integer billId, String buyerName, LocalDate dateFrom, LocalDate dateTo) {
-        bills.clear();
-        try {
-            List<Bill> result = billDAO.getBills(billId, buyerName, dateFrom, dateTo);
-            bills.addAll(result);
-            if (!bills.isEmpty()) {
-                tblBills.getSelectionModel().selectFirst();
-            } else {
+        boolean[] first = {true};
+        BillSearch[] self = new BillSearch[1];
+        BillSearch search = new BillSearch(batch -> {
+            List<TextRow<Bill>> rows = new ArrayList<>(batch.size());
+            for (Bill b : batch) rows.add(billRow(b));
+            Platform.runLater(() -> {
+                if (self[0] != currentSearch) return; // superseded while the batch was in flight
+                if (first[0]) {
+                    first[0] = false;
+                    bills.setAll(rows);
+                    tblBills.getSelectionModel().selectFirst();
+                } else {
+                    bills.addAll(rows);
+                }
+            });
+        });
+        self[0] = search;
+        currentSearch = search;
+
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() throws Exception {
+                billDAO.searchBills(billId, buyerName, dateFrom, dateTo, search);
+                return null;
+            }
+        };
+        // delivered after every batch (same FX queue): only "no rows at all" is left to handle
+        task.setOnSucceeded(ev -> {
+            if (search == currentSearch && first[0]) {
+                bills.clear();
                 clearDetails();
             }
-        } catch (Exception ex) {
+        });
+        task.setOnFailed(ev -> {
+            if (search != currentSearch) return;
+            Throwable ex = task.getException();
             ex.printStackTrace();
             Alert a = new Alert(Alert.AlertType.ERROR, "Failed to load bills: " + ex.getMessage(), ButtonType.OK);
             a.setHeaderText(null);
             a.showAndWait();
+        });
+        SEARCH_RUNNER.submit(task);
+    }
+
+    /**
+     * Selection changed: show the bill from the cache at once, or load it in the background, and
+     * prefetch the bills around it so the next arrow key is a cache hit. Loads for bills that
+     * left the window are dropped before they start; a result for a bill no longer selected is
+     * only cached, never shown.
+     */
+    private void selectBill(Bill summary) {
+        int id = summary.getId();
+        selectedBillId = id;
+        Details cached = detailCache.get(id);
+        if (cached != null) {
+            showBillDetails(cached);
+        } else {
+            clearDetails();
+        }
+
+        int index = tblBills.getSelectionModel().getSelectedIndex();
+        if (index < 0 || index >= bills.size() || bills.get(index).item() != summary) index = indexOf(summary);
+        Set<Integer> wanted = new HashSet<>();
+        wanted.add(id);
+        for (int d = 1; d <= PREFETCH_NEIGHBOURS && index >= 0; d++) {
+            if (index - d >= 0) wanted.add(bills.get(index - d).item().getId());
+            if (index + d < bills.size()) wanted.add(bills.get(index + d).item().getId());
+        }
+
+        // drop queued loads nobody needs any more (running ones finish and land in the cache)
+        // (Task.cancel ignores mayInterrupt and cancels a running task too, discarding its result)
+        detailLoads.entrySet().removeIf(e -> !wanted.contains(e.getKey())
+                && !e.getValue().isRunning() && e.getValue().cancel(false));
+
+        fetchDetails(id);   // selected bill first
+        for (Integer neighbour : wanted) {
+            fetchDetails(neighbour);
         }
     }
 
-    private void showBillDetails(Bill billSummary) {
-        try {
-            Bill full = billDAO.getBillById(billSummary.getId());
+    private void fetchDetails(int billId) {
+        if (detailCache.containsKey(billId) || detailLoads.containsKey(billId)) return;
+
+        Task<Details> load = new Task<>() {
+            @Override
+            protected Details call() throws Exception {
+                Bill full = billDAO.getBillById(billId);
+                if (full == null) return null;
+                List<TextRow<BillItem>> rows = new ArrayList<>(full.getItems().size());
+                for (BillItem it : full.getItems()) rows.add(itemRow(it));
+                return new Details(full, rows);
+            }
+        };
+        load.setOnSucceeded(ev -> {
+            detailLoads.remove(billId, load);
+            Details full = load.getValue();
+            if (full != null) detailCache.put(billId, full);
+            if (billId != selectedBillId) return; // stale or prefetch: cached only
             if (full == null) {
                 clearDetails();
-                return;
+            } else {
+                showBillDetails(full);
             }
-
-            Buyer buyer = full.getBuyer();
-            lblBuyerName.setText(buyer == null ? "" : (buyer.getName() == null ? "" : buyer.getName()));
-            lblBuyerPhone.setText(buyer == null ? "" : (buyer.getPhone() == null ? "" : buyer.getPhone()));
-            lblSubtotal.setText(String.format("%.2f", full.getSubtotal()));
-            lblDiscountAmount.setText(String.format("%.2f", full.getDiscountAmount()));
-            lblGrandTotal.setText(String.format("%.2f", full.getGrandTotal()));
-
-            items.clear();
-            items.addAll(full.getItems());
-
-        } catch (Exception ex) {
+        });
+        load.setOnCancelled(ev -> detailLoads.remove(billId, load));
+        load.setOnFailed(ev -> {
+            detailLoads.remove(billId, load);
+            if (billId != selectedBillId) return;
+            Throwable ex = load.getException();
             ex.printStackTrace();
             Alert a = new Alert(Alert.AlertType.ERROR, "Failed to load bill details: " + ex.getMessage(), ButtonType.OK);
             a.setHeaderText(null);
             a.showAndWait();
+        });
+        detailLoads.put(billId, load);
+        DETAIL_LOADER.submit(load);
+    }
+
+    private void showBillDetails(Details details) {
+        Bill full = details.bill();
+        Buyer buyer = full.getBuyer();
+        lblBuyerName.setText(buyer == null ? "" : (buyer.getName() == null ? "" : buyer.getName()));
+        lblBuyerPhone.setText(buyer == null ? "" : (buyer.getPhone() == null ? "" : buyer.getPhone()));
+        lblSubtotal.setText(NumberFormatter.money(full.getSubtotal()));
+        lblDiscountAmount.setText(NumberFormatter.money(full.getDiscountAmount()));
+        lblGrandTotal.setText(NumberFormatter.money(full.getGrandTotal()));
+
+        items.setAll(details.itemRows());
+    }
+
+    private int indexOf(Bill summary) {
+        for (int i = 0; i < bills.size(); i++) {
+            if (bills.get(i).item() == summary) return i;
         }
+        return -1;
+    }
+
+    private static TextRow<Bill> billRow(Bill b) {
+        String name = b.getBuyer() == null ? null : b.getBuyer().getName();
+        return new TextRow<>(b,
+                String.valueOf(b.getId()),
+                b.getBillDate() == null ? "" : b.getBillDate(),
+                name == null ? "" : name,
+                NumberFormatter.money(b.getGrandTotal()));
+    }
+
+    private static TextRow<BillItem> itemRow(BillItem it) {
+        return new TextRow<>(it,
+                it.getProductName(),
+                NumberFormatter.quantity(it.getQuantity()),
+                NumberFormatter.money(it.getUnitPrice()),
+                NumberFormatter.money(it.getItemTotal()));
     }
 
     private void clearDetails() {
@@ -182,11 +355,10 @@ colItemTotal.setCellValueFactory(c ->
 
     @FXML
     private void handleSearch(ActionEvent event) {
-        Integer billId = null;
         String billText = txtBillNumber.getText();
         if (billText != null && !billText.isBlank()) {
             try {
-                billId = Integer.parseInt(billText.trim());
+                Integer.parseInt(billText.trim());
             } catch (NumberFormatException ex) {
                 Alert a = new Alert(Alert.AlertType.WARNING, "Bill number must be an integer.", ButtonType.OK);
                 a.setHeaderText(null);
@@ -195,20 +367,96 @@ colItemTotal.setCellValueFactory(c ->
             }
         }
 
-        String buyerName = txtBuyerName.getText();
-        LocalDate from = dpFrom.getValue();
-        LocalDate to = dpTo.getValue();
-
-        loadBills(billId, buyerName, from, to);
+        // explicit search: no need to wait for the debounce
+        search();
     }
 
     @FXML
     private void handleReset(ActionEvent event) {
+        reset();
+    }
+
+    /** Filters cleared and all bills reloaded (bills may have been saved since the last visit). */
+    @Override
+    public void reset() {
         txtBillNumber.clear();
         txtBuyerName.clear();
         dpFrom.setValue(null);
         dpTo.setValue(null);
-        loadBills(null, null, null, null);
+        search();
+    }
+
+    /**
+     * Month-end export: every bill matching the buyer/date filters, one PDF each, in a single ZIP.
+     * Rendering runs in the background with progress and can be cancelled.
+     */
+    @FXML
+    private void handleExportAll(ActionEvent event) {
+        String buyerName = txtBuyerName.getText();
+        LocalDate from = dpFrom.getValue();
+        LocalDate to = dpTo.getValue();
+
+        FileChooser fc = new FileChooser();
+        fc.setTitle("Export bills to ZIP");
+        fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("ZIP Files", "*.zip"));
+        fc.setInitialFileName("bills" + (from != null ? "-" + from : "") + (to != null ? "-to-" + to : "") + ".zip");
+        File out = fc.showSaveDialog(btnExportAll.getScene().getWindow());
+        if (out == null) return;
+
+        exportTask = new Task<>() {
+            @Override
+            protected Integer call() throws Exception {
+                return BulkPdfExporter.exportZip(buyerName, from, to, out.toPath(),
+                        PDFRenderContext.shared("Light World"),
+                        (done, total) -> {
+                            updateProgress(done, total);
+                            updateMessage(done + " / " + total);
+                        },
+                        this::isCancelled);
+            }
+        };
+
+        pbExport.progressProperty().bind(exportTask.progressProperty());
+        lblExport.textProperty().bind(exportTask.messageProperty());
+        setExporting(true);
+
+        exportTask.setOnSucceeded(ev -> {
+            setExporting(false);
+            Alert a = new Alert(Alert.AlertType.INFORMATION,
+                    exportTask.getValue() + " bill(s) exported to " + out.getAbsolutePath(), ButtonType.OK);
+            a.setHeaderText(null);
+            a.showAndWait();
+        });
+        exportTask.setOnCancelled(ev -> setExporting(false));
+        exportTask.setOnFailed(ev -> {
+            setExporting(false);
+            Throwable ex = exportTask.getException();
+            if (ex != null) ex.printStackTrace();
+            Alert a = new Alert(Alert.AlertType.ERROR,
+                    "Export failed: " + (ex == null ? "Unknown error" : ex.getMessage()), ButtonType.OK);
+            a.setHeaderText(null);
+            a.showAndWait();
+        });
+
+        Thread t = new Thread(exportTask);
+        t.setDaemon(true);
+        t.start();
+    }
+
+    @FXML
+    private void handleCancelExport(ActionEvent event) {
+        if (exportTask != null) exportTask.cancel();
+    }
+
+    private void setExporting(boolean exporting) {
+        btnExportAll.setDisable(exporting);
+        pbExport.setVisible(exporting);
+        btnCancelExport.setVisible(exporting);
+        if (!exporting) {
+            pbExport.progressProperty().unbind();
+            lblExport.textProperty().unbind();
+            lblExport.setText("");
+        }
     }
 
     @FXML
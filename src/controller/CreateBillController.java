@@ -1,13 +1,19 @@
 package controller;
 
+import javafx.application.Platform;
 import javafx.concurrent.Task;
 import javax.print.PrintService;
-import javax.print.PrintServiceLookup;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.List;
 import java.util.stream.Collectors;
+import application.AppConfig;
 import dao.BillDAO;
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.ReadOnlyProperty;
 import javafx.beans.value.ChangeListener;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
@@ -16,14 +22,32 @@ import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.TextFieldTableCell;
+import javafx.stage.FileChooser;
 import javafx.util.converter.DoubleStringConverter;
 import model.Bill;
 import model.BillItem;
+import model.BillTotals;
+import model.BillValidation;
 import model.Buyer;
+import util.DraftJournal;
+import util.NumberFormatter;
+import util.PrintSpooler;
+import util.PrinterRegistry;
+import util.RenderCache;
 import util.SceneManager;
 
-import java.sql.SQLException;
-import java.util.Locale;
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * CreateBillController with Phase-9 validation & safety improvements:
@@ -32,7 +56,7 @@ import java.util.Locale;
  *  - disables Save if no items or invalid rows
  *  - friendly error dialogs
  */
-public class CreateBillController {
+public class CreateBillController implements SceneManager.Reusable {
 
     @FXML private TextField txtBuyerName;
     @FXML private TextField txtBuyerPhone;
@@ -53,11 +77,59 @@ public class CreateBillController {
     @FXML private Label lblGrandTotal;
 
     @FXML private Button btnNativePrint;
+    @FXML private Button btnReceiptPrint;
+
+    @FXML private Label lblSaveStatus;
+
+    private static final Logger LOGGER = Logger.getLogger(CreateBillController.class.getName());
+
+    private static final String RECEIPT_TO_FILE = "Save to file...";
+
+    // after a save: "none" (default), "bill" or "receipt" on the printer last used for it
+    public static final String KEY_AUTO_PRINT = "save.autoprint";
+    // after a save: also write bill-<id>.pdf into this folder (unset = off)
+    public static final String KEY_AUTO_EXPORT_DIR = "save.autoexport.dir";
+
+    // one writer thread: saves run in order, never on the FX thread
+    private static final ExecutorService SAVE_WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "bill-writer");
+        t.setDaemon(true);
+        return t;
+    });
 
     private int currentSavedBillId = -1;
+    // a save is running: the screen (and its draft) stay on that bill until the write is done
+    private boolean saving;
+    // reset() came while saving: start the new bill once the save has succeeded
+    private boolean resetPending;
+    // the save failed: the next reset() keeps the bill on screen to be saved again
+    private boolean keepBill;
 
     private final ObservableList<BillItem> items = FXCollections.observableArrayList();
 
+    // running totals: each edit applies its line's delta instead of re-summing every row
+    private final BillTotals totals = new BillTotals();
+    private final ChangeListener<Number> lineTotalListener =
+            (obs, oldVal, newVal) -> {
+                totals.change(oldVal.doubleValue(), newVal.doubleValue());
+                scheduleTotalsUpdate();
+            };
+
+    // validation state per row: an edit re-checks only its own row
+    private final BillValidation validation = new BillValidation();
+    private final InvalidationListener lineValueListener = obs -> {
+        BillItem item = (BillItem) ((ReadOnlyProperty<?>) obs).getBean();
+        validation.update(item);
+        journalLine(item);
+        updateSaveButtonState();
+    };
+
+    // crash-safe autosave of the bill being entered (edits buffered, synced in the background)
+    private final DraftJournal draft = DraftJournal.get();
+    private final Map<BillItem, Integer> draftLineIds = new IdentityHashMap<>();
+    private int nextDraftLineId;
+    private boolean totalsUpdatePending;
+
     @FXML
     private void initialize() {
         // Table setup
@@ -98,7 +170,6 @@ public class CreateBillController {
                 item.setQuantity(newValue);
             }
             tableItems.refresh();
-            recalcTotals();
             updateSaveButtonState();
         });
 
@@ -118,7 +189,6 @@ public class CreateBillController {
                 item.setUnitPrice(newValue);
             }
             tableItems.refresh();
-            recalcTotals();
             updateSaveButtonState();
         });
 
@@ -136,56 +206,163 @@ public class CreateBillController {
             }
         });
 
-        // Update totals and attach listeners when list changes
+        // Update totals and attach/detach listeners when rows are added or removed
         items.addListener((ListChangeListener<BillItem>) change -> {
             while (change.next()) {
+                if (change.wasRemoved()) {
+                    for (BillItem removed : change.getRemoved()) {
+                        detachItemListeners(removed);
+                        totals.remove(removed.getItemTotal());
+                        validation.remove(removed);
+                        Integer lineId = draftLineIds.remove(removed);
+                        if (lineId != null) draft.removeLine(lineId);
+                    }
+                }
                 if (change.wasAdded()) {
                     for (BillItem added : change.getAddedSubList()) {
                         attachItemListeners(added);
+                        totals.add(added.getItemTotal());
+                        validation.add(added);
+                        draftLineIds.put(added, ++nextDraftLineId);
+                        journalLine(added);
                     }
                 }
             }
-            recalcTotals();
+            scheduleTotalsUpdate();
             updateSaveButtonState();
         });
 
         // discount changes affect totals only
-        txtDiscountPercent.textProperty().addListener((obs, oldV, newV) -> recalcTotals());
+        txtDiscountPercent.textProperty().addListener((obs, oldV, newV) -> {
+            totals.setDiscountPercent(parseDoubleSafe(newV, 0.0));
+            scheduleTotalsUpdate();
+            draft.setField(DraftJournal.Field.DISCOUNT, newV);
+        });
+        txtBuyerName.textProperty().addListener((obs, oldV, newV) -> draft.setField(DraftJournal.Field.BUYER_NAME, newV));
+        txtBuyerPhone.textProperty().addListener((obs, oldV, newV) -> draft.setField(DraftJournal.Field.BUYER_PHONE, newV));
 
-        // Start with one empty row but Save is disabled until valid
-        items.add(new BillItem("", 1.0, 0.0));
+        totals.setDiscountPercent(parseDoubleSafe(txtDiscountPercent.getText(), 0.0));
+
+        if (draft.hasDraft()) {
+            // unsaved bill from the last session (the user chose to continue it at startup)
+            restoreDraft();
+        } else {
+            // Start with one empty row but Save is disabled until valid
+            items.add(new BillItem("", 1.0, 0.0));
+        }
+        updateSaveButtonState();
+    }
+
+    /**
+     * Refill the screen from the draft journal. The journal is cleared first and the restored
+     * rows and fields are journaled again as they are added, under new line ids.
+     */
+    private void restoreDraft() {
+        restoreDraft(draft.lines(), draft.field(DraftJournal.Field.BUYER_NAME),
+                draft.field(DraftJournal.Field.BUYER_PHONE), draft.field(DraftJournal.Field.DISCOUNT));
+    }
+
+    private void restoreDraft(List<DraftJournal.Line> lines, String buyerName, String buyerPhone, String discount) {
+        draft.clear();
+
+        if (buyerName != null) txtBuyerName.setText(buyerName);
+        if (buyerPhone != null) txtBuyerPhone.setText(buyerPhone);
+        if (discount != null) txtDiscountPercent.setText(discount);
+        List<BillItem> restored = new ArrayList<>(lines.size());
+        for (DraftJournal.Line l : lines) {
+            restored.add(new BillItem(l.name() == null ? "" : l.name(), l.quantity(), l.unitPrice()));
+        }
+        items.addAll(restored);
+        LOGGER.info("Restored unsaved bill draft with " + restored.size() + " line(s)");
+    }
+
+    private void journalLine(BillItem item) {
+        Integer lineId = draftLineIds.get(item);
+        if (lineId != null) {
+            draft.setLine(lineId, item.getProductName(), item.getQuantity(), item.getUnitPrice());
+        }
+    }
+
+    /**
+     * Cached screen opened again: start a new, empty bill, or the recovered draft if one is still
+     * waiting (the screen was preloaded while the draft was kept at startup). Back discards the
+     * draft of a bill left unsaved, so a normal return always starts empty. While a save is
+     * running the bill stays on screen, so a failed write can be corrected and saved again.
+     */
+    @Override
+    public void reset() {
+        if (saving) {
+            resetPending = true;
+            return;
+        }
+        if (keepBill) {
+            keepBill = false;
+            return;
+        }
+
+        // read before the rows are cleared: clearing them journals their removal
+        boolean resume = draft.hasDraft();
+        List<DraftJournal.Line> lines = draft.lines();
+        String buyerName = draft.field(DraftJournal.Field.BUYER_NAME);
+        String buyerPhone = draft.field(DraftJournal.Field.BUYER_PHONE);
+        String discount = draft.field(DraftJournal.Field.DISCOUNT);
+
+        currentSavedBillId = -1;
+        items.clear();
+        totals.reset();
+        txtBuyerName.clear();
+        txtBuyerPhone.clear();
+        txtDiscountPercent.setText("0");
+        lblSaveStatus.setText("");
+        setEditingLocked(false);
+        draft.clear();
+        if (resume) {
+            restoreDraft(lines, buyerName, buyerPhone, discount);
+        } else {
+            items.add(new BillItem("", 1.0, 0.0));
+        }
         updateSaveButtonState();
     }
 
     private void attachItemListeners(BillItem item) {
-        ChangeListener<Number> anyChange = (obs, oldVal, newVal) -> {
-            recalcTotals();
-            updateSaveButtonState();
-        };
-        item.quantityProperty().addListener(anyChange);
-        item.unitPriceProperty().addListener(anyChange);
-        item.itemTotalProperty().addListener((obs, oldVal, newVal) -> {
-            recalcTotals();
-            updateSaveButtonState();
-        });
+        // shared listener instances: nothing allocated per row, and easy to remove again
+        item.productNameProperty().addListener(lineValueListener);
+        item.quantityProperty().addListener(lineValueListener);
+        item.unitPriceProperty().addListener(lineValueListener);
+        item.itemTotalProperty().addListener(lineTotalListener);
     }
 
-    private void recalcTotals() {
-        double subtotal = items.stream().mapToDouble(BillItem::getItemTotal).sum();
-        double discountPercent = parseDoubleSafe(txtDiscountPercent.getText(), 0.0);
-        if (Double.isNaN(discountPercent) || discountPercent < 0) discountPercent = 0.0;
-        if (discountPercent > 100.0) discountPercent = 100.0;
+    private void detachItemListeners(BillItem item) {
+        item.productNameProperty().removeListener(lineValueListener);
+        item.quantityProperty().removeListener(lineValueListener);
+        item.unitPriceProperty().removeListener(lineValueListener);
+        item.itemTotalProperty().removeListener(lineTotalListener);
+    }
 
-        double discountAmount = subtotal * (discountPercent / 100.0);
-        double grandTotal = subtotal - discountAmount;
+    /**
+     * Refresh the three total labels once for a burst of changes (e.g. a paste or a row removal
+     * that touches many lines): the update runs after the current event, before the next frame.
+     */
+    private void scheduleTotalsUpdate() {
+        if (totalsUpdatePending) return;
+        totalsUpdatePending = true;
+        Platform.runLater(this::updateTotalLabels);
+    }
 
-        lblSubtotal.setText(formatNumber(subtotal));
-        lblDiscountAmount.setText(formatNumber(discountAmount));
-        lblGrandTotal.setText(formatNumber(grandTotal));
+    private void updateTotalLabels() {
+        totalsUpdatePending = false;
+        lblSubtotal.setText(formatNumber(totals.getSubtotal()));
+        lblDiscountAmount.setText(formatNumber(totals.getDiscountAmount()));
+        lblGrandTotal.setText(formatNumber(totals.getGrandTotal()));
     }
 
     private String formatNumber(double value) {
-        return String.format(Locale.getDefault(), "%.2f", value);
+        return NumberFormatter.money(value);
+    }
+
+    // same half-up rounding as NumberFormatter.money, so saved amounts match the labels
+    private static double toCents(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).doubleValue();
     }
 
     private Double parseDoubleSafe(Object possibleNumber, Double fallback) {
@@ -228,6 +405,10 @@ public class CreateBillController {
 
     @FXML
     private void handleBack(ActionEvent event) {
+        if (!saving) {
+            draft.clear(); // bill abandoned: nothing to recover after a crash
+            keepBill = false;
+        }
         SceneManager.showScene("MainMenu.fxml");
     }
 
@@ -237,6 +418,8 @@ public class CreateBillController {
      */
     @FXML
     private void handleSave(ActionEvent event) {
+        long started = System.nanoTime(); // end-to-end: click -> id back on screen
+
         // Final validation before saving (should normally be prevented by disabled button)
         List<String> errors = getValidationErrors();
         if (!errors.isEmpty()) {
@@ -250,12 +433,14 @@ public class CreateBillController {
             return;
         }
 
+        // amounts as shown on screen (rounded to paisa), taken from the running totals;
+        // the labels use thousands separators and cannot be parsed back
         Bill bill = new Bill();
-        bill.setSubtotal(parseDoubleSafe(lblSubtotal.getText(), 0.0));
+        bill.setSubtotal(toCents(totals.getSubtotal()));
         double discountPercent = parseDoubleSafe(txtDiscountPercent.getText(), 0.0);
         bill.setDiscountPercent(discountPercent);
-        bill.setDiscountAmount(parseDoubleSafe(lblDiscountAmount.getText(), 0.0));
-        bill.setGrandTotal(parseDoubleSafe(lblGrandTotal.getText(), 0.0));
+        bill.setDiscountAmount(toCents(totals.getDiscountAmount()));
+        bill.setGrandTotal(toCents(totals.getGrandTotal()));
 
         String buyerName = txtBuyerName.getText();
         String buyerPhone = txtBuyerPhone.getText();
@@ -264,26 +449,113 @@ public class CreateBillController {
             bill.setBuyer(buyer);
         }
 
-        // copy items into bill model
+        // snapshot the rows: the writer thread gets its own copies, never the live table items
         for (BillItem item : items) {
-            bill.addItem(item);
+            bill.addItem(new BillItem(item.getProductName(), item.getQuantity(), item.getUnitPrice()));
         }
 
-        // Call DAO
-        BillDAO billDAO = new BillDAO();
-        try {
-            currentSavedBillId = billDAO.saveBill(bill); // ✅ update controller state
-            // success
-            Alert a = new Alert(Alert.AlertType.INFORMATION, "Bill saved successfully. Bill ID: " + currentSavedBillId, ButtonType.OK);
-            a.setHeaderText(null);
-            a.showAndWait();
-            lockUIAfterSave();
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            Alert a = new Alert(Alert.AlertType.ERROR, "Failed to save bill: " + ex.getMessage(), ButtonType.OK);
+        // optimistic UI: lock editing now, unlock again only if the write fails
+        saving = true;
+        keepBill = false;
+        setEditingLocked(true);
+        lblSaveStatus.setText("Saving...");
+
+        Task<Integer> saveTask = new Task<>() {
+            @Override
+            protected Integer call() throws Exception {
+                return new BillDAO().saveBill(bill);
+            }
+        };
+
+        saveTask.setOnSucceeded(e -> {
+            int billId = saveTask.getValue();
+            long ms = (System.nanoTime() - started) / 1_000_000;
+            LOGGER.info("Bill #" + billId + " saved in " + ms + " ms (" + bill.getItems().size() + " items)");
+            saving = false;
+            draft.clear(); // stored for good: nothing left to recover
+            currentSavedBillId = billId; // ✅ update controller state
+            lblSaveStatus.setText("Saved as Bill #" + billId + " (" + ms + " ms)");
+            afterSave(billId);
+            if (resetPending) {
+                // the screen was opened again while saving: go on with a new bill
+                resetPending = false;
+                reset();
+                lblSaveStatus.setText("Bill #" + billId + " saved");
+            }
+        });
+
+        saveTask.setOnFailed(e -> {
+            Throwable ex = saveTask.getException();
+            LOGGER.log(Level.SEVERE, "Failed to save bill", ex);
+            // always reported, even after the user left the screen: the bill is still on it
+            saving = false;
+            resetPending = false;
+            keepBill = true;
+            lblSaveStatus.setText("");
+            setEditingLocked(false);
+            Alert a = new Alert(Alert.AlertType.ERROR, "Failed to save bill: " + ex.getMessage()
+                    + "\nThe bill is kept on Create Bill; open it to save again.", ButtonType.OK);
             a.setHeaderText(null);
             a.showAndWait();
+        });
+
+        SAVE_WRITER.submit(saveTask);
+    }
+
+    /**
+     * Follow-up work for a saved bill, all off the FX thread: pre-render for printing, then
+     * the optional auto-print (save.autoprint = bill | receipt) and auto-export (save.autoexport.dir).
+     */
+    private void afterSave(int billId) {
+        // PDF + receipt rendered in the background, so printing it is just a file read
+        RenderCache.prerender(billId);
+
+        String autoPrint = AppConfig.get(KEY_AUTO_PRINT, "none").toLowerCase();
+        if (autoPrint.equals("bill")) {
+            PrintService printer = findPrinter(PrinterRegistry.services(), PrinterRegistry.lastUsed());
+            if (printer != null) {
+                queuePrint("Bill #" + billId, printer, service -> util.NativePrinter.printBillQuietly(billId, service));
+            }
+        } else if (autoPrint.equals("receipt")) {
+            PrintService printer = findPrinter(PrinterRegistry.rawServices(), PrinterRegistry.lastUsedReceipt());
+            if (printer != null) {
+                queuePrint("Receipt #" + billId, printer, service -> util.EscPosReceipt.send(
+                        RenderCache.receipt(billId, util.BillLayout.DEFAULT_SHOP), "Receipt #" + billId, service));
+            }
         }
+
+        String exportDir = AppConfig.get(KEY_AUTO_EXPORT_DIR, null);
+        if (exportDir != null) {
+            // on the low-priority render thread: the next save never waits for PDF rendering
+            Path target;
+            try {
+                target = Paths.get(exportDir).resolve("bill-" + billId + ".pdf");
+            } catch (InvalidPathException ex) {
+                showAlert("Auto-export failed", "Bill #" + billId + " was saved, but the export folder "
+                        + exportDir + " is not a valid path.");
+                return;
+            }
+            RenderCache.exportPdf(billId, target).exceptionally(ex -> {
+                Platform.runLater(() -> showAlert("Auto-export failed",
+                        "Bill #" + billId + " was saved, but its PDF could not be written to " + target + ":\n"
+                                + ex.getMessage()));
+                return null;
+            });
+        }
+    }
+
+    private static PrintService findPrinter(PrintService[] services, String name) {
+        if (name == null) {
+            LOGGER.warning("Auto-print skipped: no printer chosen yet on this workstation");
+            return null;
+        }
+        for (PrintService s : services) {
+            if (s.getName().equals(name)) return s;
+        }
+        // an empty list right after startup: printer discovery has not finished yet
+        LOGGER.warning("Auto-print skipped: printer " + name + " not found"
+                + (services.length == 0 ? " (no printers discovered yet)" : ""));
+        return null;
     }
 
     // Native print handler (keeps existing behavior but uses currentSavedBillId)
@@ -295,18 +567,20 @@ public class CreateBillController {
             return;
         }
 
-        // 1. Get available printers
-        PrintService[] services = PrintServiceLookup.lookupPrintServices(null, null);
-        if (services == null || services.length == 0) {
-            showAlert("No printers", "No printers found on this system.");
+        // 1. Get available printers (cached by PrinterRegistry, no OS enumeration here)
+        PrintService[] services = PrinterRegistry.services();
+        if (services.length == 0) {
+            PrinterRegistry.refresh();
+            showAlert("No printers", "No printers found on this system. Searching again in the background; try once more in a moment.");
             return;
         }
 
         List<String> printerNames = Arrays.stream(services)
                 .map(PrintService::getName)
                 .collect(Collectors.toList());
+        String last = PrinterRegistry.lastUsed();
 
-        ChoiceDialog<String> dialog = new ChoiceDialog<>(printerNames.get(0), printerNames);
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(printerNames.contains(last) ? last : printerNames.get(0), printerNames);
         dialog.setTitle("Select Printer");
         dialog.setHeaderText("Select printer for bill printing");
         dialog.setContentText("Printer:");
@@ -323,43 +597,95 @@ public class CreateBillController {
                 return;
             }
 
-            // 2. Background printing task
-            Task<Void> printTask = new Task<>() {
+            PrinterRegistry.rememberLastUsed(chosenService);
+
+            // 2. Queue on the printer's spooler thread; billing can continue meanwhile
+            int billId = currentSavedBillId;
+            queuePrint("Bill #" + billId, chosenService,
+                    service -> util.NativePrinter.printBillQuietly(billId, service));
+        });
+    }
+
+    // Receipt printer: raw ESC/POS bytes, no page rendering
+    @FXML
+    private void handleReceiptPrint() {
+
+        if (currentSavedBillId <= 0) {
+            showAlert("Not saved", "Save the bill before printing.");
+            return;
+        }
+
+        // only printers that take raw data; the file entry lets receipts be checked without one
+        PrintService[] services = PrinterRegistry.rawServices();
+
+        List<String> choices = Arrays.stream(services)
+                .map(PrintService::getName)
+                .collect(Collectors.toList());
+        choices.add(RECEIPT_TO_FILE);
+        String last = PrinterRegistry.lastUsedReceipt();
+
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(choices.contains(last) ? last : choices.get(0), choices);
+        dialog.setTitle("Print Receipt");
+        dialog.setHeaderText("Select receipt printer");
+        dialog.setContentText("Printer:");
+
+        dialog.showAndWait().ifPresent(selected -> {
+
+            PrintService chosenService = Arrays.stream(services)
+                    .filter(p -> p.getName().equals(selected))
+                    .findFirst()
+                    .orElse(null);
+
+            int billId = currentSavedBillId;
+            if (chosenService != null) {
+                PrinterRegistry.rememberLastUsedReceipt(chosenService);
+                queuePrint("Receipt #" + billId, chosenService, service -> util.EscPosReceipt.send(
+                        RenderCache.receipt(billId, util.BillLayout.DEFAULT_SHOP), "Receipt #" + billId, service));
+                return;
+            }
+
+            FileChooser fc = new FileChooser();
+            fc.setTitle("Save Receipt Data");
+            fc.setInitialFileName("receipt-" + billId + ".bin");
+            File target = fc.showSaveDialog(btnReceiptPrint.getScene().getWindow());
+            if (target == null) return;
+
+            Task<Void> saveTask = new Task<>() {
                 @Override
                 protected Void call() throws Exception {
-                    dao.BillDAO billDAO = new dao.BillDAO();
-                    model.Bill bill = billDAO.getBillById(currentSavedBillId);
-
-                    // Actual native printing (BLOCKING but now on background thread)
-                    util.NativePrinter.printBillToService(bill, chosenService);
+                    Files.write(target.toPath(), RenderCache.receipt(billId, util.BillLayout.DEFAULT_SHOP));
                     return null;
                 }
             };
 
-            // 3. UI state handling
-            printTask.setOnRunning(e -> {
-                btnNativePrint.setDisable(true);
-            });
-
-            printTask.setOnSucceeded(e -> {
-                btnNativePrint.setDisable(false);
-                showAlert("Print", "Bill sent to printer successfully.");
-            });
-
-            printTask.setOnFailed(e -> {
-                btnNativePrint.setDisable(false);
-                Throwable ex = printTask.getException();
+            saveTask.setOnFailed(e -> {
+                Throwable ex = saveTask.getException();
                 ex.printStackTrace();
-                showAlert("Print failed", ex.getMessage());
+                showAlert("Save failed", ex.getMessage());
             });
 
-            // 4. Start background thread
-            Thread t = new Thread(printTask);
+            Thread t = new Thread(saveTask);
             t.setDaemon(true);
             t.start();
         });
     }
 
+    /**
+     * Hand a print job to the spooler; only a final failure (after retries) interrupts the cashier.
+     */
+    private void queuePrint(String description, PrintService service, PrintSpooler.PrintAction action) {
+        try {
+            PrintSpooler.submit(description, service, action).completion().thenAccept(job -> {
+                if (job.getState() == PrintSpooler.State.FAILED) {
+                    Platform.runLater(() -> showAlert("Print failed",
+                            job.getDescription() + " could not be printed on " + job.getPrinterName() + ":\n" + job.getError()));
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            showAlert("Printer busy", ex.getMessage());
+        }
+    }
+
     private void showAlert(String title, String message) {
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
         alert.setTitle(title);
@@ -369,60 +695,42 @@ public class CreateBillController {
     }
 
     /**
-     * Lock UI after successful save: no editing allowed (immutable record).
+     * Lock UI while saving and after a successful save: no editing allowed (immutable record).
+     * Unlocked again only if the save fails.
      */
-    private void lockUIAfterSave() {
-        // disable editing
-        tableItems.setEditable(false);
-        colProduct.setEditable(false);
-        colQuantity.setEditable(false);
-        colUnitPrice.setEditable(false);
-
-        // disable buttons & inputs
-        btnAddRow.setDisable(true);
-        btnRemoveRow.setDisable(true);
-        btnSave.setDisable(true);
-        txtBuyerName.setEditable(false);
-        txtBuyerPhone.setEditable(false);
-        txtDiscountPercent.setEditable(false);
+    private void setEditingLocked(boolean locked) {
+        // editing
+        tableItems.setEditable(!locked);
+        colProduct.setEditable(!locked);
+        colQuantity.setEditable(!locked);
+        colUnitPrice.setEditable(!locked);
+
+        // buttons & inputs
+        btnAddRow.setDisable(locked);
+        btnRemoveRow.setDisable(locked);
+        txtBuyerName.setEditable(!locked);
+        txtBuyerPhone.setEditable(!locked);
+        txtDiscountPercent.setEditable(!locked);
+        if (locked) {
+            btnSave.setDisable(true);
+        } else {
+            updateSaveButtonState();
+        }
     }
 
     // ---------------- Validation helpers ----------------
 
     /**
-     * Returns list of validation error messages (empty if valid).
+     * Returns list of validation error messages (empty if valid). Built on demand (Save), not per edit.
      */
     private List<String> getValidationErrors() {
-        List<String> errors = FXCollections.observableArrayList();
-
-        if (items.isEmpty()) {
-            errors.add("No items in the bill.");
-            return errors;
-        }
-
-        int idx = 1;
-        for (BillItem it : items) {
-            String pname = it.getProductName() == null ? "" : it.getProductName().trim();
-            if (pname.isEmpty()) {
-                errors.add("Row " + idx + ": Product name cannot be empty.");
-            }
-            if (it.getQuantity() < 0) {
-                errors.add("Row " + idx + ": Quantity cannot be negative.");
-            }
-            if (it.getUnitPrice() < 0) {
-                errors.add("Row " + idx + ": Unit price cannot be negative.");
-            }
-            idx++;
-        }
-        return errors;
+        return validation.errors(items);
     }
 
     /**
      * Enable/disable Save button based on validation state.
      */
     private void updateSaveButtonState() {
-        List<String> errors = getValidationErrors();
-        boolean valid = errors.isEmpty();
-        btnSave.setDisable(!valid);
+        btnSave.setDisable(currentSavedBillId > 0 || !validation.isValid());
     }
 }
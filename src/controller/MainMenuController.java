@@ -5,9 +5,16 @@ import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Window;
+import application.AppConfig;
+import dao.StorageProvider;
+import util.BillHashChain;
+import util.ContinuousBackup;
 import util.DBBackupUtil;
+import util.DBMaintenance;
 import util.SceneManager;
 
 import java.nio.file.Path;
@@ -18,14 +25,56 @@ import java.util.logging.Logger;
  * Main menu controller.
  * Added: Backup DB handler (Phase 10).
  */
-public class MainMenuController {
+public class MainMenuController implements SceneManager.Reusable {
 
     private static final Logger LOGGER = Logger.getLogger(MainMenuController.class.getName());
 
     @FXML private Button btnCreateBill;
     @FXML private Button btnCheckRecords;
     @FXML private Button btnBackupDB;
+    @FXML private Button btnMirror;
+    @FXML private Button btnVerify;
+    @FXML private Button btnPrintQueue;
     @FXML private Button btnExit;
+    @FXML private Label lblMaintenance;
+
+    @FXML
+    private void initialize() {
+        if (!StorageProvider.usesDatabase()) {
+            // memory backend: there is no shop database to maintain or verify, and touching it
+            // would only create an empty retailshop.db
+            hide(lblMaintenance);
+            hide(btnVerify);
+            return;
+        }
+        refreshMaintenanceStatus();
+    }
+
+    private static void hide(javafx.scene.Node n) {
+        n.setVisible(false);
+        n.setManaged(false);
+    }
+
+    /** Back on the menu: the maintenance status may have changed meanwhile. */
+    @Override
+    public void reset() {
+        refreshMaintenanceStatus();
+    }
+
+    private void refreshMaintenanceStatus() {
+        if (!StorageProvider.usesDatabase()) return;
+        // status read is a DB query: keep it off the FX thread
+        Task<String> status = new Task<>() {
+            @Override
+            protected String call() {
+                return DBMaintenance.statusText();
+            }
+        };
+        status.setOnSucceeded(ev -> lblMaintenance.setText(status.getValue()));
+        Thread t = new Thread(status);
+        t.setDaemon(true);
+        t.start();
+    }
 
     @FXML
     private void handleCreateBill(ActionEvent event) {
@@ -37,6 +86,11 @@ public class MainMenuController {
         SceneManager.showScene("CheckRecords.fxml");
     }
 
+    @FXML
+    private void handlePrintQueue(ActionEvent event) {
+        SceneManager.showScene("PrintQueue.fxml");
+    }
+
     @FXML
     private void handleExit(ActionEvent event) {
         // safe exit
@@ -89,6 +143,63 @@ public class MainMenuController {
         t.start();
     }
 
+    /**
+     * Continuous backup: pick the mirror folder (USB / second disk). Every saved bill is then
+     * appended there as it is committed; the choice is remembered for the next start.
+     */
+    @FXML
+    private void handleMirror(ActionEvent event) {
+        DirectoryChooser dc = new DirectoryChooser();
+        dc.setTitle("Choose continuous backup folder");
+        java.io.File chosen = dc.showDialog(btnMirror.getScene().getWindow());
+        if (chosen == null) return;
+
+        AppConfig.set(ContinuousBackup.KEY_MIRROR_DIR, chosen.getAbsolutePath());
+        ContinuousBackup.start();
+        if (ContinuousBackup.isEnabled()) {
+            showInfo("Continuous backup", "Every saved bill will be mirrored to:\n" + chosen.getAbsolutePath());
+        } else {
+            showError("Continuous backup", "Could not start mirroring to " + chosen.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Audit: recompute the bill hash chain on all cores and report the first broken link.
+     */
+    @FXML
+    private void handleVerify(ActionEvent event) {
+        if (!StorageProvider.usesDatabase()) return;
+        btnVerify.setDisable(true);
+        Task<BillHashChain.Report> task = new Task<>() {
+            @Override
+            protected BillHashChain.Report call() throws Exception {
+                return BillHashChain.verify();
+            }
+        };
+
+        task.setOnSucceeded(ts -> {
+            btnVerify.setDisable(false);
+            BillHashChain.Report r = task.getValue();
+            if (r.intact()) {
+                showInfo("Verify Bills", r.checked() + " bill(s) checked in " + r.elapsedMs() + " ms.\nNo bill has been altered.");
+            } else {
+                LOGGER.warning("Hash chain broken at bill #" + r.firstBrokenId() + ": " + r.reason());
+                showError("Verify Bills", "Bill #" + r.firstBrokenId() + " was changed outside the app:\n" + r.reason()
+                        + "\n\nBills before #" + r.firstBrokenId() + " are intact.");
+            }
+        });
+        task.setOnFailed(ts -> {
+            btnVerify.setDisable(false);
+            Throwable ex = task.getException();
+            LOGGER.log(Level.SEVERE, "Verification failed", ex);
+            showError("Verify Bills", ex == null ? "Unknown error" : ex.getMessage());
+        });
+
+        Thread t = new Thread(task);
+        t.setDaemon(true);
+        t.start();
+    }
+
     private void showInfo(String title, String msg) {
         Alert a = new Alert(Alert.AlertType.INFORMATION, msg);
         a.setTitle(title);
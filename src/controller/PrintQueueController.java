@@ -0,0 +1,99 @@
+package controller;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import util.PrintSpooler;
+import util.PrinterRegistry;
+import util.SceneManager;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * PrintQueueController - live view of PrintSpooler jobs (queued, printing, failed, done).
+ */
+public class PrintQueueController implements SceneManager.Reusable {
+
+    @FXML private Label lblStats;
+    @FXML private Button btnRefreshPrinters;
+    @FXML private Button btnClear;
+    @FXML private Button btnBack;
+
+    @FXML private TableView<PrintSpooler.Job> tblJobs;
+    @FXML private TableColumn<PrintSpooler.Job, Long> colJobId;
+    @FXML private TableColumn<PrintSpooler.Job, String> colJobDescription;
+    @FXML private TableColumn<PrintSpooler.Job, String> colJobPrinter;
+    @FXML private TableColumn<PrintSpooler.Job, PrintSpooler.State> colJobState;
+    @FXML private TableColumn<PrintSpooler.Job, Integer> colJobAttempts;
+    @FXML private TableColumn<PrintSpooler.Job, Long> colJobWait;
+    @FXML private TableColumn<PrintSpooler.Job, Long> colJobPrint;
+    @FXML private TableColumn<PrintSpooler.Job, String> colJobError;
+
+    // spooler events come from worker threads; collapse bursts into one FX refresh
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private final Consumer<PrintSpooler.Job> listener = job -> {
+        if (refreshPending.compareAndSet(false, true)) {
+            Platform.runLater(this::refresh);
+        }
+    };
+
+    @FXML
+    private void initialize() {
+        colJobId.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getId()));
+        colJobDescription.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getDescription()));
+        colJobPrinter.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getPrinterName()));
+        colJobState.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getState()));
+        colJobAttempts.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getAttempts()));
+        colJobWait.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getWaitMs()));
+        colJobPrint.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getPrintMs()));
+        colJobError.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getError()));
+
+        refresh();
+        // preloaded off the FX thread: nobody is looking yet, reset() starts listening on the
+        // first show. Loaded on the FX thread it is shown right away, without a reset() first.
+        if (Platform.isFxApplicationThread()) PrintSpooler.addListener(listener);
+    }
+
+    /** Shown (again): listen to the spooler while on screen (handleBack stops it) and catch up. */
+    @Override
+    public void reset() {
+        PrintSpooler.removeListener(listener); // never registered twice
+        PrintSpooler.addListener(listener);
+        refresh();
+    }
+
+    private void refresh() {
+        refreshPending.set(false);
+        tblJobs.getItems().setAll(PrintSpooler.jobs());
+        lblStats.setText(PrintSpooler.statsText());
+    }
+
+    /**
+     * Re-discover printers now (after plugging one in) instead of waiting for the periodic refresh.
+     */
+    @FXML
+    private void handleRefreshPrinters(ActionEvent event) {
+        btnRefreshPrinters.setDisable(true);
+        PrinterRegistry.refresh().whenComplete((v, ex) -> Platform.runLater(() -> {
+            btnRefreshPrinters.setDisable(false);
+            lblStats.setText(PrintSpooler.statsText() + " | " + PrinterRegistry.services().length + " printer(s) found");
+        }));
+    }
+
+    @FXML
+    private void handleClear(ActionEvent event) {
+        PrintSpooler.clearFinished();
+    }
+
+    @FXML
+    private void handleBack(ActionEvent event) {
+        PrintSpooler.removeListener(listener);
+        SceneManager.showScene("MainMenu.fxml");
+    }
+}
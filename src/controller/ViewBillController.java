@@ -1,16 +1,20 @@
 package controller;
 
 import javax.print.PrintService;
-import javax.print.PrintServiceLookup;
+import util.BillLayout;
+import util.EscPosReceipt;
 import util.NativePrinter;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 import dao.BillDAO;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.transform.Scale;
 import javafx.print.PageLayout;
 import javafx.print.PageOrientation;
@@ -23,45 +27,86 @@ import javafx.stage.Window;
 import model.Bill;
 import model.BillItem;
 import model.Buyer;
+import util.NumberFormatter;
+import util.PrintSpooler;
+import util.PrinterRegistry;
+import util.PDFRenderContext;
+import util.RenderCache;
 import util.SceneManager;
+import util.TextRow;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.List;
 
-public class ViewBillController {
+public class ViewBillController implements SceneManager.Reusable {
 
     @FXML private Label lblBillId;
     @FXML private Label lblBillDate;
     @FXML private Label lblBuyerName;
     @FXML private Label lblBuyerPhone;
 
-    @FXML private TableView<BillItem> tblItems;
-    @FXML private TableColumn<BillItem, String> colItemProduct;
-    @FXML private TableColumn<BillItem, Double> colItemQty;
-    @FXML private TableColumn<BillItem, Double> colItemPrice;
-    @FXML private TableColumn<BillItem, Double> colItemTotal;
+    @FXML private TableView<TextRow<BillItem>> tblItems;
+    @FXML private TableColumn<TextRow<BillItem>, TextRow<BillItem>> colItemProduct;
+    @FXML private TableColumn<TextRow<BillItem>, TextRow<BillItem>> colItemQty;
+    @FXML private TableColumn<TextRow<BillItem>, TextRow<BillItem>> colItemPrice;
+    @FXML private TableColumn<TextRow<BillItem>, TextRow<BillItem>> colItemTotal;
 
     @FXML private Label lblSubtotal;
     @FXML private Label lblDiscountAmount;
     @FXML private Label lblGrandTotal;
     @FXML private Button btnPrint; 
+    @FXML private Button btnReceiptPrint;
+
+    private static final String RECEIPT_TO_FILE = "Save to file...";
 
     private final BillDAO billDAO = new BillDAO();
 
     private int currentBillId = -1;
 
+    // the bill as loaded when the view opened; saved bills never change, so print and export
+    // render from this copy instead of reading the DB again
+    private Bill snapshot;
+    // renderings started speculatively as soon as the bill is shown (cache hits when prerendered)
+    private Rendering printPdf;
+    private Rendering exportPdf;
+    private Rendering receipt;
+
+    private static final String EXPORT_SHOP = "Light World";
+
+    private static final ExecutorService RENDERER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "view-render");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
     @FXML
 private void handleNativePrint() {
+    if (snapshot == null) {
+        showAlert("No bill", "No bill is loaded.");
+        return;
+    }
     try {
-        // list available printers
-        PrintService[] services = NativePrinter.listPrintServices();
-        if (services == null || services.length == 0) {
-            showAlert("No printers", "No print services (printers) found on this system.");
+        // list available printers (cached by PrinterRegistry)
+        PrintService[] services = PrinterRegistry.services();
+        if (services.length == 0) {
+            PrinterRegistry.refresh();
+            showAlert("No printers", "No print services (printers) found on this system. Searching again in the background.");
             return;
         }
 
         List<String> names = Arrays.stream(services).map(PrintService::getName).collect(Collectors.toList());
-        ChoiceDialog<String> dlg = new ChoiceDialog<>(names.get(0), names);
+        String last = PrinterRegistry.lastUsed();
+        ChoiceDialog<String> dlg = new ChoiceDialog<>(names.contains(last) ? last : names.get(0), names);
         dlg.setTitle("Select Printer");
         dlg.setHeaderText("Select a native printer to send the job to");
         dlg.setContentText("Printer:");
@@ -72,15 +117,12 @@ private void handleNativePrint() {
                     .filter(s -> s.getName().equals(selectedName))
                     .findFirst().orElse(null);
             if (chosen != null) {
-                try {
-                    // load full bill snapshot then print
-                    dao.BillDAO billDAO = new dao.BillDAO();
-                    model.Bill full = billDAO.getBillById(Integer.parseInt(lblBillId.getText()));
-                    NativePrinter.printBillToService(full, chosen);
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                    showAlert("Print error", "Failed to print: " + ex.getMessage());
-                }
+                PrinterRegistry.rememberLastUsed(chosen);
+                // print the PDF rendered when the view opened, on the spooler, not the FX thread
+                int billId = snapshot.getId();
+                Rendering pdf = printPdf;
+                queuePrint("Bill #" + billId, chosen,
+                        service -> NativePrinter.printPdf(pdf.bytes(), service, "Bill #" + billId, false));
             }
         });
 
@@ -91,17 +133,113 @@ private void handleNativePrint() {
 }
 
 
+@FXML
+private void handleReceiptPrint() {
+    if (snapshot == null) {
+        showAlert("No bill", "No bill is loaded.");
+        return;
+    }
+    // receipt printers that take raw ESC/POS bytes, plus a file entry for checking without one
+    PrintService[] services = PrinterRegistry.rawServices();
+
+    List<String> names = Arrays.stream(services).map(PrintService::getName).collect(Collectors.toList());
+    names.add(RECEIPT_TO_FILE);
+    String last = PrinterRegistry.lastUsedReceipt();
+    ChoiceDialog<String> dlg = new ChoiceDialog<>(names.contains(last) ? last : names.get(0), names);
+    dlg.setTitle("Print Receipt");
+    dlg.setHeaderText("Select a receipt printer");
+    dlg.setContentText("Printer:");
+
+    dlg.showAndWait().ifPresent(selectedName -> {
+        PrintService chosen = Arrays.stream(services)
+                .filter(s -> s.getName().equals(selectedName))
+                .findFirst().orElse(null);
+
+        int billId = snapshot.getId();
+        Rendering data = receipt;
+        if (chosen != null) {
+            PrinterRegistry.rememberLastUsedReceipt(chosen);
+            queuePrint("Receipt #" + billId, chosen, service -> EscPosReceipt.send(
+                    data.bytes(), "Receipt #" + billId, service));
+            return;
+        }
+
+        FileChooser fc = new FileChooser();
+        fc.setTitle("Save Receipt Data");
+        fc.setInitialFileName("receipt-" + billId + ".bin");
+        File target = fc.showSaveDialog(btnReceiptPrint.getScene().getWindow());
+        if (target == null) return;
+
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() throws Exception {
+                Files.write(target.toPath(), data.bytes());
+                return null;
+            }
+        };
+        task.setOnRunning(e -> btnReceiptPrint.setDisable(true));
+        task.setOnSucceeded(e -> btnReceiptPrint.setDisable(false));
+        task.setOnFailed(e -> {
+            btnReceiptPrint.setDisable(false);
+            Throwable ex = task.getException();
+            ex.printStackTrace();
+            showAlert("Save error", "Failed to save receipt: " + ex.getMessage());
+        });
+
+        Thread t = new Thread(task);
+        t.setDaemon(true);
+        t.start();
+    });
+}
+
+
+/**
+ * Hand a print job to the spooler; a final failure (after retries) is reported here.
+ */
+private void queuePrint(String description, PrintService service, PrintSpooler.PrintAction action) {
+    try {
+        PrintSpooler.submit(description, service, action).completion().thenAccept(job -> {
+            if (job.getState() == PrintSpooler.State.FAILED) {
+                Platform.runLater(() -> showAlert("Print error",
+                        job.getDescription() + " could not be printed on " + job.getPrinterName() + ":\n" + job.getError()));
+            }
+        });
+    } catch (RejectedExecutionException ex) {
+        showAlert("Printer busy", ex.getMessage());
+    }
+}
+
+
     @FXML
     private void initialize() {
-        // setup read-only table columns
-        colItemProduct.setCellValueFactory(new PropertyValueFactory<>("productName"));
-        colItemQty.setCellValueFactory(new PropertyValueFactory<>("quantity"));
-        colItemPrice.setCellValueFactory(new PropertyValueFactory<>("unitPrice"));
-        colItemTotal.setCellValueFactory(cell -> cell.getValue().itemTotalProperty().asObject());
+        // setup read-only table columns: texts formatted once per row (no reflection, no per-cell objects)
+        TextRow.bind(colItemProduct, 0);
+        TextRow.bind(colItemQty, 1, Comparator.comparingDouble(BillItem::getQuantity));
+        TextRow.bind(colItemPrice, 2, Comparator.comparingDouble(BillItem::getUnitPrice));
+        TextRow.bind(colItemTotal, 3, Comparator.comparingDouble(BillItem::getItemTotal));
 
         tblItems.setEditable(false);
     }
 
+    /**
+     * Cached screen shown for another bill: nothing of the previous bill may remain if the next
+     * one cannot be loaded.
+     */
+    @Override
+    public void reset() {
+        currentBillId = -1;
+        snapshot = null;
+        cancelRenders();
+        lblBillId.setText("");
+        lblBillDate.setText("");
+        lblBuyerName.setText("");
+        lblBuyerPhone.setText("");
+        tblItems.getItems().clear();
+        lblSubtotal.setText("");
+        lblDiscountAmount.setText("");
+        lblGrandTotal.setText("");
+    }
+
     /**
      * Public loader called by SceneManager after FXML loads.
      */
@@ -113,6 +251,8 @@ private void handleNativePrint() {
                 showAlert("Bill not found", "The requested bill was not found in the database.");
                 return;
             }
+            snapshot = bill;
+            renderAhead(bill);
 
             // populate header
             lblBillId.setText(String.valueOf(bill.getId()));
@@ -124,13 +264,20 @@ private void handleNativePrint() {
 
             // items
             List<BillItem> items = bill.getItems();
-            tblItems.getItems().clear();
-            tblItems.getItems().addAll(items);
+            List<TextRow<BillItem>> rows = new ArrayList<>(items.size());
+            for (BillItem it : items) {
+                rows.add(new TextRow<>(it,
+                        it.getProductName(),
+                        NumberFormatter.quantity(it.getQuantity()),
+                        NumberFormatter.money(it.getUnitPrice()),
+                        NumberFormatter.money(it.getItemTotal())));
+            }
+            tblItems.getItems().setAll(rows);
 
             // totals (snapshot - do not recalc)
-            lblSubtotal.setText(String.format("%.2f", bill.getSubtotal()));
-            lblDiscountAmount.setText(String.format("%.2f", bill.getDiscountAmount()));
-            lblGrandTotal.setText(String.format("%.2f", bill.getGrandTotal()));
+            lblSubtotal.setText(NumberFormatter.money(bill.getSubtotal()));
+            lblDiscountAmount.setText(NumberFormatter.money(bill.getDiscountAmount()));
+            lblGrandTotal.setText(NumberFormatter.money(bill.getGrandTotal()));
 
             // ensure all controls disabled/readonly
             disableAllInputs();
@@ -195,29 +342,100 @@ private void handlePrint() {
 
 @FXML
 private void handleExportPdf() {
+    if (snapshot == null) {
+        showAlert("No bill", "No bill is loaded.");
+        return;
+    }
     FileChooser fc = new FileChooser();
     fc.setTitle("Save Bill PDF");
     fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("PDF Files", "*.pdf"));
-    fc.setInitialFileName("bill-" + lblBillId.getText() + ".pdf");
+    fc.setInitialFileName("bill-" + snapshot.getId() + ".pdf");
     File out = fc.showSaveDialog(lblBillId.getScene().getWindow());
     if (out == null) return;
 
-    try {
-        // load a full Bill object via BillDAO here if you don't have it in controller
-        dao.BillDAO billDAO = new dao.BillDAO();
-        model.Bill full = billDAO.getBillById(Integer.parseInt(lblBillId.getText()));
-
-        // Use the new overload that loads logo from classpath automatically
-        util.PDFGenerator.generateBillPDF(full, out, "Light World");
-
+    // normally rendered while the user was picking the file: only the write is left
+    Rendering pdf = exportPdf;
+    Task<Void> task = new Task<>() {
+        @Override
+        protected Void call() throws Exception {
+            Files.write(out.toPath(), pdf.bytes());
+            return null;
+        }
+    };
+    task.setOnSucceeded(e -> {
         Alert a = new Alert(Alert.AlertType.INFORMATION, "PDF saved: " + out.getAbsolutePath(), ButtonType.OK);
         a.setHeaderText(null);
         a.showAndWait();
-    } catch (Exception ex) {
+    });
+    task.setOnFailed(e -> {
+        Throwable ex = task.getException();
         ex.printStackTrace();
         Alert a = new Alert(Alert.AlertType.ERROR, "Failed to generate PDF: " + ex.getMessage(), ButtonType.OK);
         a.setHeaderText(null);
         a.showAndWait();
+    });
+
+    Thread t = new Thread(task);
+    t.setDaemon(true);
+    t.start();
+}
+
+/**
+ * Start rendering everything this view can print or export, from the snapshot. Each output goes
+ * through RenderCache, so a bill pre-rendered after save is only read back from disk.
+ * Renderings of the bill shown before are cancelled, so they do not hold up this one.
+ */
+private void renderAhead(Bill bill) {
+    cancelRenders();
+    printPdf = render(() -> RenderCache.pdf(bill, PDFRenderContext.shared(BillLayout.DEFAULT_SHOP)));
+    exportPdf = render(() -> RenderCache.pdf(bill, PDFRenderContext.shared(EXPORT_SHOP)));
+    receipt = render(() -> RenderCache.receipt(bill, BillLayout.DEFAULT_SHOP));
+}
+
+private void cancelRenders() {
+    for (Rendering r : new Rendering[] {printPdf, exportPdf, receipt}) {
+        if (r != null) r.future.cancel(false);
+    }
+    printPdf = exportPdf = receipt = null;
+}
+
+private static Rendering render(RenderCache.Renderer renderer) {
+    Rendering r = new Rendering(renderer);
+    RENDERER.submit(() -> {
+        if (r.future.isDone()) return; // cancelled: the view has moved on to another bill
+        try {
+            r.future.complete(renderer.render());
+        } catch (Throwable ex) {
+            r.future.completeExceptionally(ex);
+        }
+    });
+    return r;
+}
+
+/** One speculative rendering; a print or export already handed it still gets its bytes if cancelled. */
+private static final class Rendering {
+    final RenderCache.Renderer renderer;
+    final CompletableFuture<byte[]> future = new CompletableFuture<>();
+
+    Rendering(RenderCache.Renderer renderer) {
+        this.renderer = renderer;
+    }
+
+    /** The bytes, waiting for the rendering or rendering here if it was cancelled (background threads only). */
+    byte[] bytes() throws IOException, SQLException {
+        try {
+            return future.get();
+        } catch (CancellationException ex) {
+            return renderer.render();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rendering", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof SQLException) throw (SQLException) cause;
+            throw new IOException(cause);
+        }
     }
 }
 
@@ -0,0 +1,237 @@
+package dao;
+
+import util.BillRecordCodec;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * BillJournal: append-only file of saved bills (BillRecordCodec frames, one per bill).
+ *
+ * Appends are written strictly in call order by one writer thread. Every request that is
+ * waiting when the writer wakes up goes out in the same write + fsync (group commit), so
+ * concurrent saves share the cost of a sync. An append completes only once the bill is on disk.
+ * The owner empties the journal (truncateAsync) once every record in it is stored elsewhere.
+ */
+public class BillJournal implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(BillJournal.class.getName());
+
+    private record Pending(byte[] payload, CompletableFuture<Void> done) {}
+
+    private static final Pending STOP = new Pending(new byte[0], new CompletableFuture<>());
+    // payload marking a truncation request (compared by identity)
+    private static final byte[] TRUNCATE = new byte[0];
+
+    private final Path file;
+    private final FileChannel channel;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile long committedLength;   // written by the writer thread only
+
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong syncedRecords = new AtomicLong();
+
+    /**
+     * Open (or create) the journal. A torn frame at the end (crash mid-write) is cut off.
+     */
+    public BillJournal(Path file) throws IOException {
+        this.file = file;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+
+        long validLength = scan(file, payload -> {});
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (channel.size() > validLength) {
+            LOGGER.warning("Bill journal: dropping " + (channel.size() - validLength) + " byte(s) of torn tail");
+            channel.truncate(validLength);
+            channel.force(true);
+        }
+        channel.position(validLength);
+        committedLength = validLength;
+
+        this.writer = new Thread(this::writerLoop, "bill-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Read every intact record from the start of a journal file.
+     *
+     * @return length in bytes of the intact prefix
+     */
+    public static long scan(Path file, Consumer<byte[]> consumer) throws IOException {
+        if (!Files.exists(file)) return 0L;
+        long length = 0L;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            byte[] payload;
+            while ((payload = BillRecordCodec.readFrame(in)) != null) {
+                consumer.accept(payload);
+                length += BillRecordCodec.frameSize(payload.length);
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Empty a journal file that is not open (every record in it already applied elsewhere).
+     */
+    public static void truncate(Path file) throws IOException {
+        if (!Files.exists(file)) return;
+        try (FileChannel c = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            c.truncate(0);
+            c.force(true);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Bytes written and fsynced so far.
+     */
+    public long length() {
+        return committedLength;
+    }
+
+    /**
+     * Queue emptying the journal behind the appends already queued; the future completes once
+     * the file is truncated. The caller must make sure no record before it is still needed.
+     */
+    public CompletableFuture<Void> truncateAsync() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        queue.add(new Pending(TRUNCATE, done));
+        return done;
+    }
+
+    /**
+     * Queue a record; the future completes once it has been written and fsynced.
+     * Callers that need ordering must serialize their calls (records are written in call order).
+     */
+    public CompletableFuture<Void> appendAsync(byte[] payload) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        queue.add(new Pending(payload, done));
+        return done;
+    }
+
+    /**
+     * Blocking form of {@link #appendAsync(byte[])}.
+     */
+    public static void await(CompletableFuture<Void> done) throws IOException {
+        try {
+            done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for bill journal");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException("Bill journal write failed", cause);
+        }
+    }
+
+    /**
+     * Average number of records per fsync since open (1.0 = no batching happened).
+     */
+    public double recordsPerSync() {
+        long n = syncs.get();
+        return n == 0 ? 0.0 : (double) syncedRecords.get() / n;
+    }
+
+    private void writerLoop() {
+        List<Pending> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch);
+            if (batch.remove(STOP)) running = false;
+
+            // appends between truncations go out as one group commit each
+            int from = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                if (batch.get(i).payload() == TRUNCATE) {
+                    write(batch.subList(from, i));
+                    truncate(batch.get(i));
+                    from = i + 1;
+                }
+            }
+            write(batch.subList(from, batch.size()));
+            batch.clear();
+        }
+    }
+
+    private void write(List<Pending> appends) {
+        if (appends.isEmpty()) return;
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(baos)) {
+                for (Pending p : appends) BillRecordCodec.writeFrame(out, p.payload());
+            }
+            ByteBuffer buf = ByteBuffer.wrap(baos.toByteArray());
+            while (buf.hasRemaining()) channel.write(buf);
+            channel.force(false);
+            committedLength += baos.size();
+            syncs.incrementAndGet();
+            syncedRecords.addAndGet(appends.size());
+            for (Pending p : appends) p.done().complete(null);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Bill journal write failed", e);
+            // cut a partial write so later records do not end up behind garbage
+            try {
+                channel.truncate(committedLength);
+                channel.position(committedLength);
+            } catch (IOException ignored) {
+            }
+            for (Pending p : appends) p.done().completeExceptionally(e);
+        }
+    }
+
+    private void truncate(Pending request) {
+        try {
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+            committedLength = 0;
+            request.done().complete(null);
+        } catch (IOException e) {
+            // the records stay (recovery skips the ones already applied); append after what is there
+            LOGGER.log(Level.WARNING, "Bill journal truncation failed", e);
+            try {
+                committedLength = channel.size();
+                channel.position(committedLength);
+            } catch (IOException ignored) {
+            }
+            request.done().completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        queue.add(STOP);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,72 @@
+package dao;
+
+import model.Bill;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * BillSearch - one run of a bill search (BillDAO.searchBills) that another thread can cancel.
+ *
+ * Matching bills are handed to the sink in batches while the rows are read, newest first, so a
+ * screen can show the first rows before the query has finished. cancel() interrupts the running
+ * JDBC statement (Statement.cancel) and no batch is delivered after it returns.
+ */
+public final class BillSearch {
+
+    public static final int BATCH_SIZE = 200;
+
+    private final Consumer<List<Bill>> sink;
+    private volatile boolean cancelled;
+    private volatile Statement statement;
+    private Set<Integer> skipIds = Set.of();
+
+    public BillSearch(Consumer<List<Bill>> sink) {
+        this.sink = sink;
+    }
+
+    /** Stop the search; safe from any thread, any number of times. */
+    public void cancel() {
+        cancelled = true;
+        Statement s = statement;
+        if (s != null) {
+            try {
+                s.cancel();
+            } catch (SQLException ignored) {
+                // statement already finished or closed: nothing left to stop
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /* ================= used by the storage backends ================= */
+
+    /** The statement now running for this search (null when done). */
+    void attach(Statement s) throws SQLException {
+        statement = s;
+        if (s != null && cancelled) s.cancel();
+    }
+
+    /** Bills already delivered from elsewhere (e.g. the journal tail), left out of later batches. */
+    void skip(Set<Integer> ids) {
+        skipIds = ids;
+    }
+
+    void deliver(List<Bill> batch) {
+        if (!skipIds.isEmpty()) {
+            List<Bill> kept = new ArrayList<>(batch.size());
+            for (Bill b : batch) {
+                if (!skipIds.contains(b.getId())) kept.add(b);
+            }
+            batch = kept;
+        }
+        if (!cancelled && !batch.isEmpty()) sink.accept(batch);
+    }
+}
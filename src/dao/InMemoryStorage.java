@@ -0,0 +1,158 @@
+package dao;
+
+import model.Bill;
+import model.BillItem;
+import model.Buyer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * InMemoryStorage: thread-safe store with no file behind it.
+ *
+ * Meant for measuring controllers, rendering and reports without disk I/O. Indexes:
+ * bills by id (hash), by bill date (sorted, newest-first scans) and by buyer id.
+ * Stored bills are private copies, and reads hand out fresh copies, so callers see the
+ * same "new objects per query" behaviour as with SQLite.
+ */
+public class InMemoryStorage implements Storage {
+
+    private static final DateTimeFormatter DTF = StoredBills.DTF;
+
+    // Sort key for the date index: bill_date, then id (dates can repeat)
+    private record DateKey(String date, int id) implements Comparable<DateKey> {
+        @Override
+        public int compareTo(DateKey o) {
+            int c = date.compareTo(o.date);
+            return c != 0 ? c : Integer.compare(id, o.id);
+        }
+    }
+
+    private final AtomicInteger nextBillId = new AtomicInteger(1);
+    private final AtomicInteger nextBuyerId = new AtomicInteger(1);
+
+    private final ConcurrentHashMap<Integer, Bill> billsById = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<DateKey, Integer> billsByDate = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Integer, Set<Integer>> billsByBuyer = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Buyer> buyersById = new ConcurrentHashMap<>();
+
+    @Override
+    public int saveBill(Bill bill) {
+        Integer buyerId = null;
+        Buyer buyer = bill.getBuyer();
+        if (StoredBills.hasBuyerDetails(buyer)) {
+            buyerId = insertBuyer(buyer);
+        }
+
+        bill.setBillDate(LocalDateTime.now().format(DTF));
+        int billId = nextBillId.getAndIncrement();
+
+        Bill stored = new Bill();
+        stored.setId(billId);
+        stored.setBillDate(bill.getBillDate());
+        stored.setGrandTotal(bill.getGrandTotal());
+        if (buyerId != null) stored.setBuyer(StoredBills.copyBuyer(buyersById.get(buyerId)));
+        stored.setItems(StoredBills.copyItems(bill.getItems()));
+
+        billsById.put(billId, stored);
+        billsByDate.put(new DateKey(stored.getBillDate(), billId), billId);
+        if (buyerId != null) {
+            billsByBuyer.computeIfAbsent(buyerId, k -> ConcurrentHashMap.newKeySet()).add(billId);
+        }
+        return billId;
+    }
+
+    @Override
+    public List<Bill> getBills(Integer billId, String buyerName, LocalDate dateFrom, LocalDate dateTo) {
+        // Narrow the candidate set with the cheapest index first
+        Collection<Integer> candidates;
+        if (billId != null) {
+            candidates = billsById.containsKey(billId) ? List.of(billId) : List.of();
+        } else if (buyerName != null && !buyerName.isBlank()) {
+            String needle = buyerName.toLowerCase();
+            candidates = new ArrayList<>();
+            for (Buyer b : buyersById.values()) {
+                if (b.getName() != null && b.getName().toLowerCase().contains(needle)) {
+                    candidates.addAll(billsByBuyer.getOrDefault(b.getId(), Set.of()));
+                }
+            }
+        } else {
+            String from = dateFrom == null ? "" : LocalDateTime.of(dateFrom, LocalTime.MIN).format(DTF);
+            String to = dateTo == null ? "\uffff" : LocalDateTime.of(dateTo, LocalTime.MAX).format(DTF);
+            candidates = billsByDate
+                    .subMap(new DateKey(from, Integer.MIN_VALUE), true, new DateKey(to, Integer.MAX_VALUE), true)
+                    .descendingMap().values();
+        }
+
+        List<Bill> out = new ArrayList<>();
+        for (Integer id : candidates) {
+            Bill b = billsById.get(id);
+            if (b != null && StoredBills.matches(b, billId, buyerName, dateFrom, dateTo)) {
+                out.add(StoredBills.summaryOf(b));
+            }
+        }
+        out.sort(Comparator.comparing(Bill::getBillDate).thenComparing(Bill::getId).reversed());
+        return out;
+    }
+
+    @Override
+    public Bill getBillById(int billId) {
+        Bill stored = billsById.get(billId);
+        return stored == null ? null : StoredBills.fullCopyOf(stored);
+    }
+
+    @Override
+    public List<BillItem> getBillItems(int billId) {
+        Bill stored = billsById.get(billId);
+        return stored == null ? new ArrayList<>() : StoredBills.copyItems(stored.getItems());
+    }
+
+    @Override
+    public int insertBuyer(Buyer buyer) {
+        int id = nextBuyerId.getAndIncrement();
+        buyersById.put(id, new Buyer(id, buyer.getName(), buyer.getPhone()));
+        return id;
+    }
+
+    @Override
+    public Buyer getBuyerById(int buyerId) {
+        return StoredBills.copyBuyer(buyersById.get(buyerId));
+    }
+
+    /**
+     * Fill the store with count generated bills spread over the last year (benchmark data).
+     */
+    public void seed(int count) {
+        Random rnd = new Random(42);
+        String[] names = {"Ali Traders", "Bilal Electric", "City Lights", "Hamza Store", "Noor Electronics", "Usman & Sons"};
+        String[] products = {"Extension Board 4-way", "LED Bulb 12W", "Switch 1-gang", "Socket 3-pin", "Wire 7/29 (m)", "Tube Light 20W"};
+        LocalDateTime start = LocalDateTime.now().minusDays(365);
+        for (int i = 0; i < count; i++) {
+            Bill bill = new Bill();
+            if (rnd.nextInt(3) > 0) {
+                bill.setBuyer(new Buyer(names[rnd.nextInt(names.length)], "03" + (100000000 + rnd.nextInt(899999999))));
+            }
+            double total = 0;
+            int lines = 1 + rnd.nextInt(12);
+            for (int l = 0; l < lines; l++) {
+                BillItem item = new BillItem(products[rnd.nextInt(products.length)], 1 + rnd.nextInt(20), 50 + rnd.nextInt(950));
+                total += item.getItemTotal();
+                bill.addItem(item);
+            }
+            bill.setGrandTotal(total);
+            int id = saveBill(bill);
+
+            // spread dates over the year instead of "now"
+            Bill stored = billsById.get(id);
+            billsByDate.remove(new DateKey(stored.getBillDate(), id));
+            stored.setBillDate(start.plusSeconds((long) i * 365 * 24 * 3600 / Math.max(1, count)).format(DTF));
+            billsByDate.put(new DateKey(stored.getBillDate(), id), id);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package dao;
+
+import application.AppConfig;
+import model.Bill;
+import model.BillItem;
+import model.Buyer;
+import util.BillRecordCodec;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * JournaledStorage: the bill journal is the system of record, SQLite is a projection.
+ *
+ * saveBill assigns the bill id, appends the bill to BillJournal and returns as soon as that
+ * single sequential write is fsynced. The SQLite rows (buyer, bill, items) are written afterwards
+ * by one projection thread, in journal order. Until a bill is projected it is served from memory,
+ * so a bill can be printed or looked up right after save.
+ *
+ * Projection stays strictly in journal order, so every bill is hash-chained (BillHashChain) to its
+ * real predecessor. A projection that keeps failing is retried journal.projection.retries times,
+ * then parked: that bill and every later one stay in the journal and in memory, and the queue is
+ * tried again (once per attempt, no backoff) with each new bill and at startup, draining in order
+ * as soon as SQLite takes writes again. Once every record is in SQLite and the journal has grown
+ * past journal.compact.kb it is emptied, so a restart has little to rescan.
+ *
+ * On startup {@link #recover(SqliteStorage, Path)} applies the journal records missing from the
+ * tables, in order up to the first one that fails, and empties the journal when all of them are in.
+ *
+ * Settings (AppConfig):
+ *  - journal.projection.retries: retries of a failing projection before it is parked, default 5
+ *  - journal.compact.kb: journal size at which a fully projected journal is emptied, default 1024
+ */
+public class JournaledStorage implements Storage {
+
+    private static final Logger LOGGER = Logger.getLogger(JournaledStorage.class.getName());
+
+    public static final String JOURNAL_FILE = "bills.journal";
+
+    public static final String KEY_PROJECTION_RETRIES = "journal.projection.retries";
+    public static final String KEY_COMPACT_KB = "journal.compact.kb";
+
+    private final SqliteStorage tables;
+    private final BillJournal journal;
+
+    private final Object appendLock = new Object();
+    private int nextBillId; // guarded by appendLock
+
+    // durable in the journal, not yet in SQLite
+    private final ConcurrentHashMap<Integer, Bill> pending = new ConcurrentHashMap<>();
+    // pending bills still to be projected, in id (= journal) order; projector thread only after construction
+    private final Set<Integer> queued = new ConcurrentSkipListSet<>();
+    // the head of the queue failed all its retries: later attempts are single tries
+    private volatile boolean parked;
+
+    private final int projectionRetries = Math.max(0, AppConfig.getInt(KEY_PROJECTION_RETRIES, 5));
+    private final long compactBytes = Math.max(0, AppConfig.getLong(KEY_COMPACT_KB, 1024)) * 1024;
+
+    private final ExecutorService projector = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "bill-projection");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public JournaledStorage(SqliteStorage tables, Path journalFile) throws IOException, SQLException {
+        this.tables = tables;
+        Map<Integer, Bill> unapplied = new HashMap<>();
+        int lastJournalId = recover(tables, journalFile, unapplied);
+        this.journal = new BillJournal(journalFile);
+        this.nextBillId = Math.max(lastJournalId, tables.getMaxBillId()) + 1;
+        // still served from memory, tried again (in order) with the next bill
+        pending.putAll(unapplied);
+        queued.addAll(unapplied.keySet());
+        parked = !unapplied.isEmpty();
+    }
+
+    /**
+     * Apply journal records missing from the SQLite tables, in order, then empty the journal if
+     * all of them are in. From the first record that cannot be applied on, records are kept in the
+     * journal (and not applied, so the hash chain stays in journal order).
+     *
+     * @return highest bill id in the journal (0 if empty or missing)
+     */
+    public static int recover(SqliteStorage tables, Path journalFile) throws IOException {
+        return recover(tables, journalFile, new HashMap<>());
+    }
+
+    private static int recover(SqliteStorage tables, Path journalFile, Map<Integer, Bill> unapplied) throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        long length = BillJournal.scan(journalFile, records::add);
+
+        int lastId = 0;
+        int applied = 0;
+        for (byte[] payload : records) {
+            Bill bill = BillRecordCodec.decode(payload);
+            lastId = bill.getId();
+            if (!unapplied.isEmpty()) {
+                unapplied.put(bill.getId(), bill);
+                continue;
+            }
+            try {
+                if (tables.applyJournaledBill(bill)) applied++;
+            } catch (SQLException e) {
+                LOGGER.log(Level.SEVERE, "Bill journal recovery: bill #" + bill.getId()
+                        + " could not be written to SQLite; it and the bills after it are kept in the journal", e);
+                unapplied.put(bill.getId(), bill);
+            }
+        }
+        if (applied > 0) {
+            LOGGER.info("Bill journal recovery: projected " + applied + " bill(s) into SQLite");
+        }
+        if (unapplied.isEmpty() && length > 0) {
+            // every record is committed (and synced) in SQLite: nothing left to replay next time
+            BillJournal.truncate(journalFile);
+        }
+        return lastId;
+    }
+
+    @Override
+    public int saveBill(Bill bill) throws SQLException {
+        bill.setBillDate(LocalDateTime.now().format(StoredBills.DTF));
+
+        // private snapshot: the caller's BillItems are live table rows
+        Bill record = new Bill();
+        record.setBillDate(bill.getBillDate());
+        record.setSubtotal(bill.getSubtotal());
+        record.setDiscountPercent(bill.getDiscountPercent());
+        record.setDiscountAmount(bill.getDiscountAmount());
+        record.setGrandTotal(bill.getGrandTotal());
+        if (StoredBills.hasBuyerDetails(bill.getBuyer())) {
+            record.setBuyer(new Buyer(bill.getBuyer().getName(), bill.getBuyer().getPhone()));
+        }
+        record.setItems(StoredBills.copyItems(bill.getItems()));
+
+        int billId;
+        CompletableFuture<Void> durable;
+        // id order == journal order == projection order
+        synchronized (appendLock) {
+            billId = nextBillId++;
+            record.setId(billId);
+            try {
+                durable = journal.appendAsync(BillRecordCodec.encode(record));
+            } catch (IOException e) {
+                throw new SQLException("Saving bill failed: " + e.getMessage(), e);
+            }
+            pending.put(billId, record);
+            projector.execute(() -> project(record, durable));
+        }
+
+        try {
+            BillJournal.await(durable);
+        } catch (IOException e) {
+            pending.remove(billId);
+            throw new SQLException("Saving bill failed, journal write error: " + e.getMessage(), e);
+        }
+        bill.setId(billId);
+        return billId;
+    }
+
+    private void project(Bill record, CompletableFuture<Void> durable) {
+        try {
+            BillJournal.await(durable);
+        } catch (IOException e) {
+            return; // never became durable; saveBill already reported it
+        }
+
+        queued.add(record.getId());
+        drain();
+    }
+
+    /**
+     * Project queued bills in id order, stopping at the first one that fails: it stays at the
+     * head (parked), and the bills behind it wait in memory and in the journal.
+     */
+    private void drain() {
+        for (Integer id : queued) {
+            if (!apply(pending.get(id))) return;
+            pending.remove(id);
+            queued.remove(id);
+            if (parked) {
+                parked = false;
+                LOGGER.info("Bill projection resumed at bill #" + id);
+            }
+        }
+        compact();
+    }
+
+    /** Write one bill to SQLite, with backoff retries unless the queue is already parked. */
+    private boolean apply(Bill record) {
+        long backoffMs = 500;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                tables.applyJournaledBill(record);
+                return true;
+            } catch (SQLException e) {
+                if (parked) {
+                    LOGGER.log(Level.FINE, "Parked bill #" + record.getId() + " still cannot be projected", e);
+                    return false;
+                }
+                if (attempt > projectionRetries) {
+                    // safe in the journal and still served from memory, like every bill queued behind it
+                    LOGGER.log(Level.SEVERE, "Projection of bill #" + record.getId() + " failed " + attempt
+                            + " time(s); it and later bills wait for the next save or a restart", e);
+                    parked = true;
+                    return false;
+                }
+                // bill is safe in the journal; keep serving it from memory and retry
+                LOGGER.log(Level.WARNING, "Projection of bill #" + record.getId() + " failed, retrying in " + backoffMs + " ms", e);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    // still queued: park it so the next bill tries it again
+                    Thread.currentThread().interrupt();
+                    parked = true;
+                    return false;
+                }
+                backoffMs = Math.min(backoffMs * 2, 30_000);
+            }
+        }
+    }
+
+    /** Empty the journal once it is large and every record in it has reached SQLite. */
+    private void compact() {
+        if (!pending.isEmpty() || journal.length() < compactBytes) return;
+        synchronized (appendLock) {
+            // checked again under the lock: no save can queue a record ahead of the truncation
+            if (pending.isEmpty()) journal.truncateAsync();
+        }
+    }
+
+    @Override
+    public List<Bill> getBills(Integer billId, String buyerName, LocalDate dateFrom, LocalDate dateTo) throws SQLException {
+        // snapshot the tail first: a bill projected meanwhile then shows up in the query instead
+        List<Bill> tail = new ArrayList<>(pending.values());
+        List<Bill> out = tables.getBills(billId, buyerName, dateFrom, dateTo);
+        if (tail.isEmpty()) return out;
+
+        Set<Integer> seen = new HashSet<>();
+        for (Bill b : out) seen.add(b.getId());
+        boolean added = false;
+        for (Bill b : tail) {
+            if (!seen.contains(b.getId()) && StoredBills.matches(b, billId, buyerName, dateFrom, dateTo)) {
+                out.add(StoredBills.summaryOf(b));
+                added = true;
+            }
+        }
+        if (added) out.sort(Comparator.comparing(Bill::getBillDate).reversed());
+        return out;
+    }
+
+    /**
+     * Journal tail first (not yet projected, hence the newest bills), then the tables streamed,
+     * leaving out any tail bill projected in the meantime.
+     */
+    @Override
+    public void searchBills(Integer billId, String buyerName, LocalDate dateFrom, LocalDate dateTo,
+                            BillSearch search) throws SQLException {
+        List<Bill> tail = new ArrayList<>();
+        Set<Integer> tailIds = new HashSet<>();
+        for (Bill b : pending.values()) {
+            if (StoredBills.matches(b, billId, buyerName, dateFrom, dateTo)) {
+                tail.add(StoredBills.summaryOf(b));
+                tailIds.add(b.getId());
+            }
+        }
+        tail.sort(Comparator.comparing(Bill::getBillDate).reversed());
+        search.deliver(tail);
+        search.skip(tailIds);
+        tables.searchBills(billId, buyerName, dateFrom, dateTo, search);
+    }
+
+    @Override
+    public Bill getBillById(int billId) throws SQLException {
+        Bill p = pending.get(billId);
+        return p != null ? StoredBills.fullCopyOf(p) : tables.getBillById(billId);
+    }
+
+    @Override
+    public String getBillHash(int billId) throws SQLException {
+        // hashed when projected into the tables
+        return pending.containsKey(billId) ? null : tables.getBillHash(billId);
+    }
+
+    @Override
+    public List<BillItem> getBillItems(int billId) throws SQLException {
+        Bill p = pending.get(billId);
+        return p != null ? StoredBills.copyItems(p.getItems()) : tables.getBillItems(billId);
+    }
+
+    @Override
+    public int insertBuyer(Buyer buyer) throws SQLException {
+        return tables.insertBuyer(buyer);
+    }
+
+    @Override
+    public Buyer getBuyerById(int buyerId) throws SQLException {
+        return tables.getBuyerById(buyerId);
+    }
+
+    /**
+     * Bills written to the journal but not yet visible in the SQLite tables.
+     */
+    public int getProjectionLag() {
+        return pending.size();
+    }
+
+    /**
+     * Bills held back because a projection gave up after its retries (the failed one and all
+     * later ones; still in the journal and served from memory).
+     */
+    public int getParkedCount() {
+        return parked ? queued.size() : 0;
+    }
+}
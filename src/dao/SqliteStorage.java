@@ -0,0 +1,403 @@
+package dao;
+
+import application.DBConnection;
+import model.Bill;
+import model.BillItem;
+import model.Buyer;
+import util.BillHashChain;
+import util.ContinuousBackup;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SqliteStorage: the production backend (SQLite file from DBConnection).
+ * Every call opens its own connection; saveBill runs in a single transaction.
+ */
+public class SqliteStorage implements Storage {
+
+    // Bills are chained by hash (BillHashChain): writes must not interleave between
+    // reading the previous hash and committing the new bill
+    private static final Object CHAIN_LOCK = new Object();
+
+    /**
+     * Save the bill (with items and optional buyer) in a single transaction.
+     * Returns generated bill_id.
+     */
+    @Override
+    public int saveBill(Bill bill) throws SQLException {
+        // bill_date use ISO_LOCAL_DATE_TIME
+        String now = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        bill.setBillDate(now);
+        return writeBill(bill, null);
+    }
+
+    /**
+     * Projection of a bill already made durable in the bill journal: keeps the journal's
+     * bill id and date. Returns false (and writes nothing) if the bill is already present.
+     */
+    public boolean applyJournaledBill(Bill bill) throws SQLException {
+        try (Connection conn = DBConnection.getBackgroundConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM Bills WHERE bill_id = ?")) {
+            ps.setInt(1, bill.getId());
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) return false;
+            }
+        }
+        writeBill(bill, bill.getId());
+        return true;
+    }
+
+    /**
+     * Highest bill id in the tables (0 if empty).
+     */
+    public int getMaxBillId() throws SQLException {
+        try (Connection conn = DBConnection.getBackgroundConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT IFNULL(MAX(bill_id), 0) FROM Bills")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Insert bill, items and optional buyer in one transaction. explicitId null = let SQLite
+     * generate the bill id.
+     */
+    private int writeBill(Bill bill, Integer explicitId) throws SQLException {
+        String insertBillSql = explicitId == null
+                ? "INSERT INTO Bills (bill_date, total_amount, buyer_id) VALUES (?, ?, ?)"
+                : "INSERT INTO Bills (bill_date, total_amount, buyer_id, bill_id) VALUES (?, ?, ?, ?)";
+        String insertItemSql = "INSERT INTO BillItems (bill_id, item_name, quantity, price) VALUES (?, ?, ?, ?)";
+
+        // Use a single new connection for the whole transaction
+        synchronized (CHAIN_LOCK) {
+            try (Connection conn = DBConnection.getConnection()) {
+                boolean previousAutoCommit = conn.getAutoCommit();
+                try {
+                    conn.setAutoCommit(false);
+
+                    Integer buyerId = null;
+                    Buyer buyer = bill.getBuyer();
+                    if (buyer != null && ((buyer.getName() != null && !buyer.getName().isBlank()) ||
+                            (buyer.getPhone() != null && !buyer.getPhone().isBlank()))) {
+                        // buyer insert participates in this transaction
+                        buyerId = insertBuyer(conn, buyer);
+                    }
+
+                    int billId;
+                    try (PreparedStatement psBill = conn.prepareStatement(insertBillSql, Statement.RETURN_GENERATED_KEYS)) {
+                        psBill.setString(1, bill.getBillDate());
+                        psBill.setDouble(2, bill.getGrandTotal());
+                        if (buyerId != null) {
+                            psBill.setInt(3, buyerId);
+                        } else {
+                            psBill.setNull(3, Types.INTEGER);
+                        }
+                        if (explicitId != null) psBill.setInt(4, explicitId);
+                        int affected = psBill.executeUpdate();
+                        if (affected == 0) {
+                            throw new SQLException("Creating bill failed, no rows affected.");
+                        }
+                        try (ResultSet keys = psBill.getGeneratedKeys()) {
+                            if (keys.next()) {
+                                billId = keys.getInt(1);
+                            } else {
+                                throw new SQLException("Creating bill failed, no ID obtained.");
+                            }
+                        }
+                    }
+
+                    try (PreparedStatement psItem = conn.prepareStatement(insertItemSql)) {
+                        for (BillItem item : bill.getItems()) {
+                            psItem.setInt(1, billId);
+                            psItem.setString(2, item.getProductName());
+                            psItem.setDouble(3, item.getQuantity());
+                            psItem.setDouble(4, item.getUnitPrice());
+                            psItem.addBatch();
+                        }
+                        psItem.executeBatch();
+                    }
+
+                    // link this bill to the previous one
+                    String prevHash = BillHashChain.previousHash(conn, billId);
+                    String billHash = BillHashChain.hash(prevHash, billId, bill.getBillDate(), bill.getGrandTotal(),
+                            buyerId != null ? buyer.getName() : null, buyerId != null ? buyer.getPhone() : null,
+                            bill.getItems());
+                    try (PreparedStatement psHash = conn.prepareStatement("UPDATE Bills SET bill_hash = ? WHERE bill_id = ?")) {
+                        psHash.setString(1, billHash);
+                        psHash.setInt(2, billId);
+                        psHash.executeUpdate();
+                    }
+
+                    conn.commit();
+
+                    // hand the committed bill (with its generated ids) to the backup mirror
+                    bill.setId(billId);
+                    if (buyerId != null) buyer.setId(buyerId);
+                    ContinuousBackup.onBillCommitted(bill);
+                    return billId;
+                } catch (SQLException ex) {
+                    try {
+                        conn.rollback();
+                    } catch (SQLException rollEx) {
+                        rollEx.printStackTrace();
+                    }
+                    throw ex;
+                } finally {
+                    try {
+                        conn.setAutoCommit(previousAutoCommit);
+                    } catch (SQLException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get a list of bills matching optional filters.
+     */
+    @Override
+    public List<Bill> getBills(Integer billId, String buyerName, LocalDate dateFrom, LocalDate dateTo) throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = prepareBillQuery(conn, billId, buyerName, dateFrom, dateTo)) {
+
+            try (ResultSet rs = ps.executeQuery()) {
+                List<Bill> out = new ArrayList<>();
+                while (rs.next()) {
+                    out.add(readBillSummary(rs));
+                }
+                return out;
+            }
+        }
+    }
+
+    /**
+     * Streaming getBills: rows are delivered in batches while the cursor advances, and
+     * search.cancel() interrupts the statement (SQLite aborts the running step).
+     */
+    @Override
+    public void searchBills(Integer billId, String buyerName, LocalDate dateFrom, LocalDate dateTo,
+                            BillSearch search) throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = prepareBillQuery(conn, billId, buyerName, dateFrom, dateTo)) {
+
+            search.attach(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<Bill> batch = new ArrayList<>(BillSearch.BATCH_SIZE);
+                while (!search.isCancelled() && rs.next()) {
+                    batch.add(readBillSummary(rs));
+                    if (batch.size() == BillSearch.BATCH_SIZE) {
+                        search.deliver(batch);
+                        batch = new ArrayList<>(BillSearch.BATCH_SIZE);
+                    }
+                }
+                search.deliver(batch);
+            } catch (SQLException ex) {
+                if (!search.isCancelled()) throw ex;   // interrupted on purpose: not an error
+            } finally {
+                search.attach(null);
+            }
+        }
+    }
+
+    private static PreparedStatement prepareBillQuery(Connection conn, Integer billId, String buyerName,
+                                                      LocalDate dateFrom, LocalDate dateTo) throws SQLException {
+        StringBuilder sql = new StringBuilder();
+        sql.append("SELECT b.bill_id, b.bill_date, b.total_amount, b.buyer_id, br.name AS buyer_name ")
+           .append("FROM Bills b LEFT JOIN Buyers br ON b.buyer_id = br.buyer_id WHERE 1=1 ");
+
+        List<Object> params = new ArrayList<>();
+
+        if (billId != null) {
+            sql.append("AND b.bill_id = ? ");
+            params.add(billId);
+        }
+
+        if (buyerName != null && !buyerName.isBlank()) {
+            sql.append("AND LOWER(br.name) LIKE ? ");
+            params.add("%" + buyerName.toLowerCase() + "%");
+        }
+
+        DateTimeFormatter dtf = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+        if (dateFrom != null) {
+            LocalDateTime start = LocalDateTime.of(dateFrom, LocalTime.MIN);
+            sql.append("AND b.bill_date >= ? ");
+            params.add(start.format(dtf));
+        }
+
+        if (dateTo != null) {
+            LocalDateTime end = LocalDateTime.of(dateTo, LocalTime.MAX);
+            sql.append("AND b.bill_date <= ? ");
+            params.add(end.format(dtf));
+        }
+
+        sql.append("ORDER BY b.bill_date DESC");
+
+        PreparedStatement ps = conn.prepareStatement(sql.toString());
+        for (int i = 0; i < params.size(); i++) {
+            Object p = params.get(i);
+            if (p instanceof Integer) {
+                ps.setInt(i + 1, (Integer) p);
+            } else {
+                ps.setString(i + 1, p.toString());
+            }
+        }
+        return ps;
+    }
+
+    /** One row of the bill list query: bill without items, buyer with id and name only. */
+    private static Bill readBillSummary(ResultSet rs) throws SQLException {
+        Bill b = new Bill();
+        b.setId(rs.getInt("bill_id"));
+        b.setBillDate(rs.getString("bill_date"));
+        b.setGrandTotal(rs.getDouble("total_amount"));
+
+        int buyerId = rs.getInt("buyer_id");
+        if (!rs.wasNull()) {
+            Buyer buyer = new Buyer();
+            buyer.setId(buyerId);
+            buyer.setName(rs.getString("buyer_name"));
+            b.setBuyer(buyer);
+        }
+        return b;
+    }
+
+    /**
+     * Get bill by id plus its items (items are loaded and attached).
+     */
+    @Override
+    public Bill getBillById(int billId) throws SQLException {
+        String sqlBill = "SELECT bill_id, bill_date, total_amount, buyer_id FROM Bills WHERE bill_id = ?";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sqlBill)) {
+
+            ps.setInt(1, billId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                Bill b = new Bill();
+                b.setId(rs.getInt("bill_id"));
+                b.setBillDate(rs.getString("bill_date"));
+                b.setGrandTotal(rs.getDouble("total_amount"));
+                int buyerId = rs.getInt("buyer_id");
+                if (!rs.wasNull()) {
+                    Buyer buyer = getBuyerById(buyerId);
+                    b.setBuyer(buyer);
+                }
+                // Load items
+                List<BillItem> items = getBillItems(b.getId());
+                b.setItems(items);
+
+                // compute subtotal and discount
+                double subtotal = items.stream().mapToDouble(i -> i.getItemTotal()).sum();
+                b.setSubtotal(subtotal);
+                double discountAmount = subtotal - b.getGrandTotal();
+                if (discountAmount < 0) discountAmount = 0.0;
+                b.setDiscountAmount(discountAmount);
+                double discountPercent = subtotal > 0 ? (discountAmount / subtotal) * 100.0 : 0.0;
+                b.setDiscountPercent(discountPercent);
+
+                return b;
+            }
+        }
+    }
+
+    @Override
+    public String getBillHash(int billId) throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT bill_hash FROM Bills WHERE bill_id = ?")) {
+            ps.setInt(1, billId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    /**
+     * Return list of BillItem for a given bill_id
+     */
+    @Override
+    public List<BillItem> getBillItems(int billId) throws SQLException {
+        String sql = "SELECT item_name, quantity, price FROM BillItems WHERE bill_id = ? ORDER BY item_id ASC";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, billId);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<BillItem> items = new ArrayList<>();
+                while (rs.next()) {
+                    String name = rs.getString("item_name");
+                    double qty = rs.getDouble("quantity");
+                    double price = rs.getDouble("price");
+                    BillItem bi = new BillItem(name, qty, price);
+                    items.add(bi);
+                }
+                return items;
+            }
+        }
+    }
+
+    /* ================= Buyers ================= */
+
+    /**
+     * Insert buyer using provided connection (participates in caller transaction).
+     * Returns generated buyer_id.
+     */
+    public static int insertBuyer(Connection conn, Buyer buyer) throws SQLException {
+        String sql = "INSERT INTO Buyers(name, phone) VALUES (?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, buyer.getName());
+            ps.setString(2, buyer.getPhone());
+            int affected = ps.executeUpdate();
+            if (affected == 0) {
+                throw new SQLException("Inserting buyer failed, no rows affected.");
+            }
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (keys.next()) {
+                    return keys.getInt(1);
+                } else {
+                    throw new SQLException("Inserting buyer failed, no ID obtained.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Convenience: insert buyer using its own connection (not transactional with caller).
+     */
+    @Override
+    public int insertBuyer(Buyer buyer) throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            return insertBuyer(conn, buyer);
+        }
+    }
+
+    /**
+     * Read-only: get buyer by id (uses its own connection).
+     */
+    @Override
+    public Buyer getBuyerById(int buyerId) throws SQLException {
+        String sql = "SELECT buyer_id, name, phone FROM Buyers WHERE buyer_id = ?";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, buyerId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    Buyer b = new Buyer();
+                    b.setId(rs.getInt("buyer_id"));
+                    b.setName(rs.getString("name"));
+                    b.setPhone(rs.getString("phone"));
+                    return b;
+                } else {
+                    return null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package dao;
+
+import model.Bill;
+import model.BillItem;
+import model.Buyer;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Storage - everything the screens need from a bill store.
+ *
+ * BillDAO and BuyerDAO delegate to the backend chosen at startup (see StorageProvider):
+ * SqliteStorage for the shop, InMemoryStorage for benchmarks and trying things out.
+ * Methods keep the SQLException signature of the original DAOs so callers do not change.
+ */
+public interface Storage {
+
+    /**
+     * Save the bill (with items and optional buyer) atomically. Sets the bill date.
+     * Returns generated bill id.
+     */
+    int saveBill(Bill bill) throws SQLException;
+
+    /**
+     * Bills matching the optional filters, newest first. Items are NOT loaded;
+     * the buyer carries id and name only.
+     */
+    List<Bill> getBills(Integer billId, String buyerName, LocalDate dateFrom, LocalDate dateTo) throws SQLException;
+
+    /**
+     * Same bills as getBills, handed to search in batches as they are read. Returns early
+     * (without error) once the search is cancelled.
+     */
+    default void searchBills(Integer billId, String buyerName, LocalDate dateFrom, LocalDate dateTo,
+                             BillSearch search) throws SQLException {
+        List<Bill> all = getBills(billId, buyerName, dateFrom, dateTo);
+        for (int i = 0; i < all.size() && !search.isCancelled(); i += BillSearch.BATCH_SIZE) {
+            search.deliver(new ArrayList<>(all.subList(i, Math.min(all.size(), i + BillSearch.BATCH_SIZE))));
+        }
+    }
+
+    /**
+     * Full bill with buyer and items, subtotal/discount derived from the items. Null if missing.
+     */
+    Bill getBillById(int billId) throws SQLException;
+
+    /**
+     * Items of a bill in entry order.
+     */
+    List<BillItem> getBillItems(int billId) throws SQLException;
+
+    /**
+     * Stored content hash of a bill (bill_hash, see BillHashChain), or null if the bill is
+     * missing, not hashed yet or the backend keeps no hashes.
+     */
+    default String getBillHash(int billId) throws SQLException {
+        return null;
+    }
+
+    /**
+     * Insert a buyer on its own (not part of a bill save). Returns generated buyer id.
+     */
+    int insertBuyer(Buyer buyer) throws SQLException;
+
+    /**
+     * Buyer by id, or null.
+     */
+    Buyer getBuyerById(int buyerId) throws SQLException;
+}
@@ -0,0 +1,107 @@
+package dao;
+
+import application.AppConfig;
+import application.DBConnection;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * StorageProvider: picks the storage backend once, at startup.
+ *
+ * "storage.backend" (app.properties or -Drbs.storage.backend=...):
+ *   sqlite  - the shop database (default)
+ *   journal - JournaledStorage: bills.journal is the durable write, SQLite tables are updated
+ *             in the background as a projection
+ *   memory  - InMemoryStorage, nothing written to disk; "storage.memory.seed" = number of
+ *             generated bills to preload for benchmarking screens, PDF and print output
+ */
+public final class StorageProvider {
+
+    private static final Logger LOGGER = Logger.getLogger(StorageProvider.class.getName());
+
+    public static final String KEY_BACKEND = "storage.backend";
+
+    private static volatile Storage instance;
+
+    private StorageProvider() {}
+
+    public static Storage get() {
+        Storage s = instance;
+        if (s == null) {
+            synchronized (StorageProvider.class) {
+                if (instance == null) instance = create(backendName());
+                s = instance;
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Replace the backend (benchmarks / tools). Call before any screen is shown.
+     */
+    public static synchronized void set(Storage storage) {
+        instance = storage;
+    }
+
+    /**
+     * True when the configured backend keeps its data in the SQLite file (DB bootstrap,
+     * backup and maintenance are only needed then).
+     */
+    public static boolean usesDatabase() {
+        return !"memory".equals(backendName());
+    }
+
+    private static String backendName() {
+        return AppConfig.get(KEY_BACKEND, "sqlite").toLowerCase();
+    }
+
+    private static Path journalFile() {
+        return DBConnection.getAppDataDir().resolve(JournaledStorage.JOURNAL_FILE);
+    }
+
+    private static Storage create(String name) {
+        switch (name) {
+            case "memory": {
+                InMemoryStorage mem = new InMemoryStorage();
+                int seed = AppConfig.getInt("storage.memory.seed", 0);
+                if (seed > 0) mem.seed(seed);
+                LOGGER.info("Storage backend: in-memory (" + seed + " generated bills)");
+                return mem;
+            }
+            case "journal": {
+                DBConnection.getInstance();
+                SqliteStorage tables = new SqliteStorage();
+                try {
+                    JournaledStorage journaled = new JournaledStorage(tables, journalFile());
+                    LOGGER.info("Storage backend: bill journal + SQLite projection");
+                    return journaled;
+                } catch (IOException | SQLException e) {
+                    LOGGER.log(Level.SEVERE, "Bill journal unavailable, saving straight to SQLite", e);
+                    return tables;
+                }
+            }
+            case "sqlite": {
+                DBConnection.getInstance();
+                SqliteStorage tables = new SqliteStorage();
+                // switched back from journal mode: make sure its tail reached the tables
+                if (Files.exists(journalFile())) {
+                    try {
+                        JournaledStorage.recover(tables, journalFile());
+                    } catch (IOException e) {
+                        LOGGER.log(Level.SEVERE, "Could not apply bill journal tail", e);
+                    }
+                }
+                LOGGER.info("Storage backend: SQLite");
+                return tables;
+            }
+            default:
+                LOGGER.warning("Unknown storage backend '" + name + "', using SQLite");
+                return new SqliteStorage();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package dao;
+
+import model.Bill;
+import model.BillItem;
+import model.Buyer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copy / filter helpers for backends that keep Bill objects in memory
+ * (InMemoryStorage, the not-yet-projected tail of JournaledStorage).
+ */
+final class StoredBills {
+
+    static final DateTimeFormatter DTF = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private StoredBills() {}
+
+    /**
+     * True if the buyer has something worth storing (same rule as SqliteStorage.saveBill).
+     */
+    static boolean hasBuyerDetails(Buyer buyer) {
+        return buyer != null && ((buyer.getName() != null && !buyer.getName().isBlank()) ||
+                (buyer.getPhone() != null && !buyer.getPhone().isBlank()));
+    }
+
+    /**
+     * What getBills returns: id, date, total, buyer id + name; no items.
+     */
+    static Bill summaryOf(Bill stored) {
+        Bill b = new Bill();
+        b.setId(stored.getId());
+        b.setBillDate(stored.getBillDate());
+        b.setGrandTotal(stored.getGrandTotal());
+        Buyer buyer = stored.getBuyer();
+        if (buyer != null) {
+            Buyer summary = new Buyer();
+            summary.setId(buyer.getId());
+            summary.setName(buyer.getName());
+            b.setBuyer(summary);
+        }
+        return b;
+    }
+
+    /**
+     * What getBillById returns: fresh copy with items, subtotal and discount derived the
+     * same way SqliteStorage does it.
+     */
+    static Bill fullCopyOf(Bill stored) {
+        Bill b = new Bill();
+        b.setId(stored.getId());
+        b.setBillDate(stored.getBillDate());
+        b.setGrandTotal(stored.getGrandTotal());
+        b.setBuyer(copyBuyer(stored.getBuyer()));
+        List<BillItem> items = copyItems(stored.getItems());
+        b.setItems(items);
+
+        double subtotal = items.stream().mapToDouble(BillItem::getItemTotal).sum();
+        b.setSubtotal(subtotal);
+        double discountAmount = Math.max(0.0, subtotal - b.getGrandTotal());
+        b.setDiscountAmount(discountAmount);
+        b.setDiscountPercent(subtotal > 0 ? (discountAmount / subtotal) * 100.0 : 0.0);
+        return b;
+    }
+
+    /**
+     * Same filter semantics as the SQL in SqliteStorage.getBills.
+     */
+    static boolean matches(Bill b, Integer billId, String buyerName, LocalDate dateFrom, LocalDate dateTo) {
+        if (billId != null && b.getId() != billId) return false;
+        if (buyerName != null && !buyerName.isBlank()) {
+            Buyer buyer = b.getBuyer();
+            if (buyer == null || buyer.getName() == null
+                    || !buyer.getName().toLowerCase().contains(buyerName.toLowerCase())) return false;
+        }
+        if (dateFrom != null && b.getBillDate().compareTo(LocalDateTime.of(dateFrom, LocalTime.MIN).format(DTF)) < 0) return false;
+        if (dateTo != null && b.getBillDate().compareTo(LocalDateTime.of(dateTo, LocalTime.MAX).format(DTF)) > 0) return false;
+        return true;
+    }
+
+    static Buyer copyBuyer(Buyer b) {
+        return b == null ? null : new Buyer(b.getId(), b.getName(), b.getPhone());
+    }
+
+    static List<BillItem> copyItems(List<BillItem> items) {
+        List<BillItem> out = new ArrayList<>(items.size());
+        for (BillItem it : items) {
+            out.add(new BillItem(it.getProductName(), it.getQuantity(), it.getUnitPrice()));
+        }
+        return out;
+    }
+}
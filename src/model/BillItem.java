@@ -10,10 +10,11 @@ import javafx.beans.property.StringProperty;
 
 public class BillItem {
 
-    private final StringProperty productName = new SimpleStringProperty("");
-    private final DoubleProperty quantity = new SimpleDoubleProperty(1.0);
-    private final DoubleProperty unitPrice = new SimpleDoubleProperty(0.0);
-    private final ReadOnlyDoubleWrapper itemTotal = new ReadOnlyDoubleWrapper();
+    // bean = this item, so one shared listener can tell which row changed
+    private final StringProperty productName = new SimpleStringProperty(this, "productName", "");
+    private final DoubleProperty quantity = new SimpleDoubleProperty(this, "quantity", 1.0);
+    private final DoubleProperty unitPrice = new SimpleDoubleProperty(this, "unitPrice", 0.0);
+    private final ReadOnlyDoubleWrapper itemTotal = new ReadOnlyDoubleWrapper(this, "itemTotal");
 
     // ✅ REQUIRED no-arg constructor
     public BillItem() {
@@ -0,0 +1,65 @@
+package model;
+
+/**
+ * BillTotals - running subtotal / discount / grand total of a bill being edited.
+ *
+ * Every edit adjusts the subtotal by the changed line's delta, so keeping the totals current
+ * costs O(1) per edit however many lines the bill has. Deltas are summed with Neumaier
+ * compensation: thousands of add/subtract steps give the same result as summing the lines afresh.
+ */
+public class BillTotals {
+
+    private double sum;
+    private double compensation;    // low-order bits lost by sum
+    private double discountPercent;
+
+    /** A line was added (or its old total is being replaced, see change()). */
+    public void add(double lineTotal) {
+        double t = sum + lineTotal;
+        if (Math.abs(sum) >= Math.abs(lineTotal)) {
+            compensation += (sum - t) + lineTotal;
+        } else {
+            compensation += (lineTotal - t) + sum;
+        }
+        sum = t;
+    }
+
+    public void remove(double lineTotal) {
+        add(-lineTotal);
+    }
+
+    /** A line's total changed from oldTotal to newTotal. */
+    public void change(double oldTotal, double newTotal) {
+        add(-oldTotal);
+        add(newTotal);
+    }
+
+    public void reset() {
+        sum = 0;
+        compensation = 0;
+    }
+
+    /** Discount in percent, clamped to 0..100 (NaN counts as 0). */
+    public void setDiscountPercent(double percent) {
+        if (Double.isNaN(percent) || percent < 0) percent = 0.0;
+        if (percent > 100.0) percent = 100.0;
+        this.discountPercent = percent;
+    }
+
+    public double getDiscountPercent() {
+        return discountPercent;
+    }
+
+    public double getSubtotal() {
+        double s = sum + compensation;
+        return s == 0 ? 0.0 : s;     // no "-0.00" after removing every line
+    }
+
+    public double getDiscountAmount() {
+        return getSubtotal() * (discountPercent / 100.0);
+    }
+
+    public double getGrandTotal() {
+        return getSubtotal() - getDiscountAmount();
+    }
+}
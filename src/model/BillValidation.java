@@ -0,0 +1,88 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BillValidation - which lines of a bill being edited are invalid, kept up to date per line.
+ *
+ * Each line has a set of problem flags; only the line that changed is re-checked, and a count of
+ * invalid lines answers "can this bill be saved?" in O(1). Readable messages are produced only
+ * when asked for (errors()), i.e. when the user actually tries to save.
+ */
+public class BillValidation {
+
+    public static final int NAME_EMPTY = 1;
+    public static final int QUANTITY_NEGATIVE = 2;
+    public static final int PRICE_NEGATIVE = 4;
+
+    private final Map<BillItem, Integer> flags = new IdentityHashMap<>();
+    private int invalidLines;
+
+    /** Problem flags of item (0 = valid). */
+    public static int check(BillItem item) {
+        int f = 0;
+        String name = item.getProductName();
+        if (name == null || name.isBlank()) f |= NAME_EMPTY;
+        if (item.getQuantity() < 0) f |= QUANTITY_NEGATIVE;
+        if (item.getUnitPrice() < 0) f |= PRICE_NEGATIVE;
+        return f;
+    }
+
+    public void add(BillItem item) {
+        int f = check(item);
+        Integer old = flags.put(item, f);
+        if (old != null && old != 0) invalidLines--;
+        if (f != 0) invalidLines++;
+    }
+
+    public void remove(BillItem item) {
+        Integer old = flags.remove(item);
+        if (old != null && old != 0) invalidLines--;
+    }
+
+    /** Re-check one line after it was edited. */
+    public void update(BillItem item) {
+        Integer old = flags.get(item);
+        if (old == null) return;    // not (or no longer) part of the bill
+        int f = check(item);
+        if (f == old) return;
+        flags.put(item, f);
+        if (old != 0) invalidLines--;
+        if (f != 0) invalidLines++;
+    }
+
+    /** True if the bill has at least one line and no invalid line. */
+    public boolean isValid() {
+        return !flags.isEmpty() && invalidLines == 0;
+    }
+
+    public int getInvalidLineCount() {
+        return invalidLines;
+    }
+
+    /**
+     * Messages for every problem, numbered by position in items (empty if valid).
+     */
+    public List<String> errors(List<BillItem> items) {
+        List<String> errors = new ArrayList<>();
+        if (items.isEmpty()) {
+            errors.add("No items in the bill.");
+            return errors;
+        }
+        if (invalidLines == 0) return errors;
+
+        int idx = 1;
+        for (BillItem it : items) {
+            Integer f = flags.get(it);
+            int bits = f != null ? f : check(it);
+            if ((bits & NAME_EMPTY) != 0) errors.add("Row " + idx + ": Product name cannot be empty.");
+            if ((bits & QUANTITY_NEGATIVE) != 0) errors.add("Row " + idx + ": Quantity cannot be negative.");
+            if ((bits & PRICE_NEGATIVE) != 0) errors.add("Row " + idx + ": Unit price cannot be negative.");
+            idx++;
+        }
+        return errors;
+    }
+}
@@ -0,0 +1,312 @@
+package util;
+
+import application.DBConnection;
+import model.BillItem;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * BillHashChain - tamper evidence for saved bills.
+ *
+ * Every bill row carries bill_hash = SHA-256(previous bill's hash + canonical bill content),
+ * where the content is id, date, total, buyer name/phone and every item (name, qty, price) in order.
+ * Changing, deleting or inserting a bill outside the app breaks the link at that bill.
+ *
+ * Verification splits the id range into segments checked in parallel: each segment only needs the
+ * stored hash of the bill just before it, so segments are independent.
+ */
+public final class BillHashChain {
+
+    private static final Logger LOGGER = Logger.getLogger(BillHashChain.class.getName());
+
+    /** "Previous hash" of the very first bill. */
+    public static final String GENESIS = "0".repeat(64);
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Result of a chain check. firstBrokenId is 0 when the chain is intact.
+     */
+    public record Report(long checked, int firstBrokenId, String reason, long elapsedMs) {
+        public boolean intact() {
+            return firstBrokenId == 0;
+        }
+    }
+
+    private BillHashChain() {}
+
+    /**
+     * Hash of one bill linked to prevHash.
+     */
+    public static String hash(String prevHash, int billId, String billDate, double total,
+                              String buyerName, String buyerPhone, List<BillItem> items) {
+        MessageDigest md = sha256();
+        md.update(prevHash.getBytes(StandardCharsets.US_ASCII));
+        putInt(md, billId);
+        putString(md, billDate);
+        putLong(md, Double.doubleToLongBits(total));
+        putString(md, buyerName);
+        putString(md, buyerPhone);
+        putInt(md, items.size());
+        for (BillItem item : items) {
+            putString(md, item.getProductName());
+            putLong(md, Double.doubleToLongBits(item.getQuantity()));
+            putLong(md, Double.doubleToLongBits(item.getUnitPrice()));
+        }
+        return toHex(md.digest());
+    }
+
+    /**
+     * Stored hash of the bill right before billId (GENESIS if none), read on the caller's connection.
+     */
+    public static String previousHash(Connection conn, int billId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT bill_hash FROM Bills WHERE bill_id < ? ORDER BY bill_id DESC LIMIT 1")) {
+            ps.setInt(1, billId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return GENESIS;
+                String h = rs.getString(1);
+                return h != null ? h : GENESIS;
+            }
+        }
+    }
+
+    /**
+     * Hash every bill that has no bill_hash yet (older rows, replayed rows), in id order.
+     * Runs on the caller's connection/transaction.
+     *
+     * @return number of bills sealed
+     */
+    public static int sealMissing(Connection conn) throws SQLException {
+        int firstId;
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT IFNULL(MIN(bill_id), 0) FROM Bills WHERE bill_hash IS NULL")) {
+            firstId = rs.next() ? rs.getInt(1) : 0;
+        }
+        if (firstId == 0) return 0;
+
+        String prev = previousHash(conn, firstId);
+        int sealed = 0;
+        try (PreparedStatement update = conn.prepareStatement("UPDATE Bills SET bill_hash = ? WHERE bill_id = ?")) {
+            for (Row row : readRange(conn, firstId, Integer.MAX_VALUE)) {
+                String h = row.storedHash;
+                if (h == null) {
+                    h = row.computeHash(prev);
+                    update.setString(1, h);
+                    update.setInt(2, row.id);
+                    update.addBatch();
+                    sealed++;
+                }
+                prev = h;
+            }
+            update.executeBatch();
+        }
+        LOGGER.info("Hash chain: sealed " + sealed + " bill(s)");
+        return sealed;
+    }
+
+    /**
+     * Check the whole chain of the runtime DB using all cores.
+     */
+    public static Report verify() throws SQLException {
+        return verify(Runtime.getRuntime().availableProcessors());
+    }
+
+    public static Report verify(int threads) throws SQLException {
+        long t0 = System.nanoTime();
+        int minId, maxId;
+        try (Connection conn = DBConnection.getBackgroundConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT IFNULL(MIN(bill_id), 0), IFNULL(MAX(bill_id), 0) FROM Bills")) {
+            rs.next();
+            minId = rs.getInt(1);
+            maxId = rs.getInt(2);
+        }
+        if (maxId == 0) return new Report(0, 0, null, 0);
+
+        // more segments than threads so a slow segment does not hold up the rest
+        int segments = Math.max(1, threads * 4);
+        long span = (long) maxId - minId + 1;
+        long step = Math.max(1, (span + segments - 1) / segments);
+
+        AtomicInteger firstBroken = new AtomicInteger(Integer.MAX_VALUE);
+        ConcurrentHashMap<Integer, String> reasons = new ConcurrentHashMap<>();
+        AtomicLong checked = new AtomicLong();
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "hash-chain-verify");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long lo = minId; lo <= maxId; lo += step) {
+                int from = (int) lo;
+                int to = (int) Math.min(maxId, lo + step - 1);
+                futures.add(pool.submit(() -> {
+                    verifySegment(from, to, firstBroken, reasons, checked);
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof SQLException) throw (SQLException) cause;
+                    throw new SQLException("Hash chain verification failed", cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Hash chain verification interrupted", e);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long ms = (System.nanoTime() - t0) / 1_000_000L;
+        int broken = firstBroken.get();
+        if (broken == Integer.MAX_VALUE) return new Report(checked.get(), 0, null, ms);
+        return new Report(checked.get(), broken, reasons.get(broken), ms);
+    }
+
+    private static void verifySegment(int from, int to, AtomicInteger firstBroken,
+                                      ConcurrentHashMap<Integer, String> reasons, AtomicLong checked) throws SQLException {
+        // a break was already found before this segment: nothing here can be "first"
+        if (from > firstBroken.get()) return;
+
+        try (Connection conn = DBConnection.getBackgroundConnection()) {
+            String prev = previousHash(conn, from);
+            long n = 0;
+            for (Row row : readRange(conn, from, to)) {
+                if (row.id > firstBroken.get()) break;
+                n++;
+                String reason = null;
+                if (row.storedHash == null) {
+                    reason = "bill has no hash (inserted outside the app)";
+                } else if (!row.storedHash.equals(row.computeHash(prev))) {
+                    reason = "content or previous bill does not match the stored hash";
+                }
+                if (reason != null) {
+                    reasons.put(row.id, reason);
+                    firstBroken.accumulateAndGet(row.id, Math::min);
+                    break;
+                }
+                prev = row.storedHash;
+            }
+            checked.addAndGet(n);
+        }
+    }
+
+    /* ================= row loading ================= */
+
+    private static final class Row {
+        int id;
+        String date;
+        double total;
+        String buyerName;
+        String buyerPhone;
+        String storedHash;
+        final List<BillItem> items = new ArrayList<>();
+
+        String computeHash(String prev) {
+            return hash(prev, id, date, total, buyerName, buyerPhone, items);
+        }
+    }
+
+    /**
+     * Bills in [from, to] with buyer and items: two range scans merged by bill id.
+     */
+    private static List<Row> readRange(Connection conn, int from, int to) throws SQLException {
+        List<Row> rows = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT b.bill_id, b.bill_date, b.total_amount, b.bill_hash, br.name, br.phone " +
+                "FROM Bills b LEFT JOIN Buyers br ON b.buyer_id = br.buyer_id " +
+                "WHERE b.bill_id BETWEEN ? AND ? ORDER BY b.bill_id")) {
+            ps.setInt(1, from);
+            ps.setInt(2, to);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Row r = new Row();
+                    r.id = rs.getInt(1);
+                    r.date = rs.getString(2);
+                    r.total = rs.getDouble(3);
+                    r.storedHash = rs.getString(4);
+                    r.buyerName = rs.getString(5);
+                    r.buyerPhone = rs.getString(6);
+                    rows.add(r);
+                }
+            }
+        }
+        if (rows.isEmpty()) return rows;
+
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT bill_id, item_name, quantity, price FROM BillItems " +
+                "WHERE bill_id BETWEEN ? AND ? ORDER BY bill_id, item_id")) {
+            ps.setInt(1, from);
+            ps.setInt(2, to);
+            try (ResultSet rs = ps.executeQuery()) {
+                int i = 0;
+                while (rs.next()) {
+                    int billId = rs.getInt(1);
+                    while (i < rows.size() && rows.get(i).id < billId) i++;
+                    if (i == rows.size()) break;
+                    if (rows.get(i).id != billId) continue; // items of a missing bill
+                    rows.get(i).items.add(new BillItem(rs.getString(2), rs.getDouble(3), rs.getDouble(4)));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /* ================= digest helpers ================= */
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void putInt(MessageDigest md, int v) {
+        md.update((byte) (v >>> 24));
+        md.update((byte) (v >>> 16));
+        md.update((byte) (v >>> 8));
+        md.update((byte) v);
+    }
+
+    private static void putLong(MessageDigest md, long v) {
+        putInt(md, (int) (v >>> 32));
+        putInt(md, (int) v);
+    }
+
+    // length-prefixed so ("ab","c") and ("a","bc") hash differently; -1 marks null
+    private static void putString(MessageDigest md, String s) {
+        if (s == null) {
+            putInt(md, -1);
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        putInt(md, b.length);
+        md.update(b);
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] out = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            out[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            out[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(out);
+    }
+}
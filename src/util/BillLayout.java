@@ -0,0 +1,264 @@
+package util;
+
+import model.Bill;
+import model.BillItem;
+import model.Buyer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * BillLayout - where everything on a printed/PDF bill goes, computed once per bill.
+ *
+ * Coordinates are points on an A4 page, measured from the top-left corner (PDFGenerator flips y).
+ * The layout holds pagination, row positions and the final cell strings (truncated names,
+ * formatted numbers); PDFGenerator only replays it and measures text for centering and right
+ * alignment. Printed bills are that same PDF (NativePrinter).
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+public final class BillLayout {
+
+    /* ================= page geometry ================= */
+
+    public static final float PAGE_WIDTH = 595.27563f;   // A4
+    public static final float PAGE_HEIGHT = 841.8898f;
+    public static final float MARGIN = 36f;
+    public static final float FOOTER_HEIGHT = 40f;
+    public static final float ROW_HEIGHT = 22f;
+    public static final float ROW_BASELINE = 15f;        // text baseline below a row's top
+    public static final float TABLE_WIDTH = PAGE_WIDTH - 2 * MARGIN;
+
+    /* ================= header (first page) ================= */
+
+    public static final String DEFAULT_SHOP = "Fakhar Enterprises";
+    public static final List<String> SHOP_DESC = List.of(
+            "Deal in All Kind of Electronic",
+            "Parts Extension Boards Importer & Stockist");
+
+    public static final float LOGO_WIDTH = 80f;
+    public static final float LOGO_HEIGHT = 50f;
+    public static final float LOGO_X = PAGE_WIDTH - MARGIN - LOGO_WIDTH;
+    public static final float LOGO_Y = MARGIN;
+    public static final float SHOP_NAME_BASELINE = MARGIN + 20f;
+    public static final float DESC_FIRST_BASELINE = MARGIN + 38f;
+    public static final float DESC_LINE_HEIGHT = 12f;
+    public static final float DIVIDER_Y = DESC_FIRST_BASELINE + SHOP_DESC.size() * DESC_LINE_HEIGHT + 15f;
+    public static final float DIVIDER_WIDTH = 1.2f;
+    public static final float HEADER_BOTTOM = DIVIDER_Y + 10f;
+
+    public static final float DETAILS_RIGHT = PAGE_WIDTH - MARGIN;
+    public static final float BILL_NO_BASELINE = HEADER_BOTTOM - 30f;
+    public static final float DATE_BASELINE = HEADER_BOTTOM - 16f;
+
+    public static final float BUYER_LABEL_X = MARGIN;
+    public static final float BUYER_NAME_X = MARGIN + 50f;
+    public static final float PHONE_LABEL_X = MARGIN + 360f;
+    public static final float PHONE_X = MARGIN + 405f;
+
+    public static final float FOOTER_BASELINE = PAGE_HEIGHT - MARGIN - FOOTER_HEIGHT / 4f;
+
+    /* ================= font sizes ================= */
+
+    public static final float SHOP_NAME_SIZE = 18f;
+    public static final float TEXT_SIZE = 10f;
+    public static final float SMALL_SIZE = 9f;
+    public static final float GRAND_TOTAL_SIZE = 12f;
+
+    /* ================= grey levels (0 = black, 1 = white) ================= */
+
+    public static final float TABLE_HEADER_FILL = 0.9f;
+    public static final float ROW_LINE_GREY = 0.85f;
+    public static final float COLUMN_LINE_GREY = 0.7f;
+
+    /* ================= table columns ================= */
+
+    public enum Align { LEFT, CENTER, RIGHT }
+
+    /**
+     * A table column. textX is the text anchor: left edge (LEFT), right edge (RIGHT) or the
+     * column's left edge with width used for centering (CENTER).
+     */
+    public record Column(String title, float x, float width, Align align, float textX) {}
+
+    private static final int NAME_MAX_CHARS = 35;
+
+    public static final List<Column> COLUMNS;
+
+    static {
+        float[] pct = {0.08f, 0.45f, 0.10f, 0.18f};
+        float[] w = new float[5];
+        float used = 0;
+        for (int i = 0; i < pct.length; i++) {
+            w[i] = TABLE_WIDTH * pct[i];
+            used += w[i];
+        }
+        w[4] = TABLE_WIDTH - used;
+
+        String[] titles = {"S.No", "Product Description", "Qty", "Unit Price", "Total"};
+        Align[] aligns = {Align.CENTER, Align.LEFT, Align.CENTER, Align.RIGHT, Align.RIGHT};
+        List<Column> cols = new ArrayList<>(5);
+        float x = MARGIN;
+        for (int i = 0; i < 5; i++) {
+            float textX = switch (aligns[i]) {
+                case LEFT -> x + 5f;
+                case RIGHT -> x + w[i] - 5f;
+                case CENTER -> x;
+            };
+            cols.add(new Column(titles[i], x, w[i], aligns[i], textX));
+            x += w[i];
+        }
+        COLUMNS = Collections.unmodifiableList(cols);
+    }
+
+    public static final float GRAND_TOTAL_LABEL_X = COLUMNS.get(3).x() + 10f;
+    public static final float GRAND_TOTAL_LINE_X = COLUMNS.get(3).x();
+    public static final float TABLE_RIGHT = MARGIN + TABLE_WIDTH;
+
+    /* ================= per-bill content ================= */
+
+    /** One item row: top edge, text baseline and the five cell strings (column order). */
+    public record Row(float top, float baseline, List<String> cells) {}
+
+    /**
+     * One page. tableTop..tableBottom spans the column header row and all item rows.
+     * grandTotalBaseline is NaN except on the last page.
+     */
+    public record Page(int index, float tableTop, float tableBottom, List<Row> rows, float grandTotalBaseline) {
+        public boolean isFirst() {
+            return index == 0;
+        }
+
+        public boolean hasGrandTotal() {
+            return !Float.isNaN(grandTotalBaseline);
+        }
+    }
+
+    private final String shopName;
+    private final String billNoText;
+    private final String dateText;
+    private final String buyerName;     // null = no buyer block
+    private final String buyerPhone;    // null/empty = no phone
+    private final String grandTotalText;
+    private final String footerText;
+    private final List<Page> pages;
+    private final int rowCount;
+
+    private BillLayout(Bill bill, String shopName) {
+        this.shopName = shopName != null ? shopName : DEFAULT_SHOP;
+        this.billNoText = "Bill #: " + bill.getId();
+        this.dateText = "Date: " + (bill.getBillDate() != null ? bill.getBillDate() : "N/A");
+        Buyer b = bill.getBuyer();
+        this.buyerName = b == null ? null : (b.getName() != null ? b.getName() : "Walk-in Customer");
+        this.buyerPhone = b == null || b.getPhone() == null || b.getPhone().isEmpty() ? null : b.getPhone();
+        this.grandTotalText = "PKR " + NumberFormatter.money(bill.getGrandTotal());
+        this.footerText = footerText(this.shopName);
+        this.pages = paginate(bill.getItems(), buyerName != null);
+        this.rowCount = bill.getItems().size();
+    }
+
+    /**
+     * Lay out bill for printing/PDF. The bill must have its items loaded.
+     */
+    public static BillLayout of(Bill bill, String shopName) {
+        if (bill == null || bill.getItems() == null) {
+            throw new IllegalArgumentException("Bill or items cannot be null");
+        }
+        return new BillLayout(bill, shopName);
+    }
+
+    public static String footerText(String shopName) {
+        return "Thank you for shopping at " + (shopName != null ? shopName : DEFAULT_SHOP) + "!";
+    }
+
+    private static List<Page> paginate(List<BillItem> items, boolean hasBuyer) {
+        List<Page> out = new ArrayList<>();
+        int next = 0;
+        int index = 0;
+        do {
+            float tableTop;
+            if (index == 0) {
+                tableTop = HEADER_BOTTOM + (hasBuyer ? 25f : 10f);
+            } else {
+                tableTop = MARGIN + 20f;
+            }
+            // room below the column header row, above the footer band
+            float available = PAGE_HEIGHT - MARGIN - FOOTER_HEIGHT - (tableTop + ROW_HEIGHT);
+            int rowsPerPage = Math.max(1, (int) (available / ROW_HEIGHT));
+            int end = Math.min(next + rowsPerPage, items.size());
+
+            List<Row> rows = new ArrayList<>(end - next);
+            float top = tableTop + ROW_HEIGHT;
+            for (int i = next; i < end; i++) {
+                BillItem it = items.get(i);
+                rows.add(new Row(top, top + ROW_BASELINE, List.of(
+                        String.valueOf(i + 1),
+                        trunc(it.getProductName()),
+                        NumberFormatter.quantity(it.getQuantity()),
+                        NumberFormatter.money(it.getUnitPrice()),
+                        NumberFormatter.money(it.getItemTotal()))));
+                top += ROW_HEIGHT;
+            }
+            float tableBottom = top;
+            float grandTotal = end == items.size() ? tableBottom + 18f : Float.NaN;
+            out.add(new Page(index, tableTop, tableBottom, Collections.unmodifiableList(rows), grandTotal));
+
+            next = end;
+            index++;
+        } while (next < items.size());
+        return Collections.unmodifiableList(out);
+    }
+
+    private static String trunc(String s) {
+        if (s == null) return "";
+        return s.length() <= NAME_MAX_CHARS ? s : s.substring(0, NAME_MAX_CHARS - 3) + "...";
+    }
+
+    /* ================= accessors ================= */
+
+    public String getShopName() {
+        return shopName;
+    }
+
+    public String getBillNoText() {
+        return billNoText;
+    }
+
+    public String getDateText() {
+        return dateText;
+    }
+
+    public boolean hasBuyer() {
+        return buyerName != null;
+    }
+
+    public String getBuyerName() {
+        return buyerName;
+    }
+
+    public String getBuyerPhone() {
+        return buyerPhone;
+    }
+
+    public String getGrandTotalText() {
+        return grandTotalText;
+    }
+
+    public String getFooterText() {
+        return footerText;
+    }
+
+    public List<Page> getPages() {
+        return pages;
+    }
+
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    /** Item rows over all pages. */
+    public int getRowCount() {
+        return rowCount;
+    }
+}
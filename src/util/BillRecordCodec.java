@@ -0,0 +1,151 @@
+package util;
+
+import model.Bill;
+import model.BillItem;
+import model.Buyer;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * BillRecordCodec - compact binary form of a saved bill.
+ *
+ * Frame layout on disk: [int payloadLength][payload bytes][long crc32(payload)].
+ * A frame whose length or checksum does not match (torn write after a power cut)
+ * is treated as the end of the file, so readers never see half a bill.
+ */
+public final class BillRecordCodec {
+
+    private static final byte VERSION = 1;
+    private static final int MAX_FRAME = 16 * 1024 * 1024;
+
+    private BillRecordCodec() {}
+
+    /**
+     * Encode a saved bill (id, date, totals, buyer with id, items) to bytes.
+     */
+    public static byte[] encode(Bill bill) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(128 + bill.getItems().size() * 48);
+        try (DataOutputStream out = new DataOutputStream(baos)) {
+            out.writeByte(VERSION);
+            out.writeInt(bill.getId());
+            writeString(out, bill.getBillDate());
+            out.writeDouble(bill.getSubtotal());
+            out.writeDouble(bill.getDiscountPercent());
+            out.writeDouble(bill.getDiscountAmount());
+            out.writeDouble(bill.getGrandTotal());
+
+            Buyer buyer = bill.getBuyer();
+            out.writeBoolean(buyer != null);
+            if (buyer != null) {
+                out.writeInt(buyer.getId());
+                writeString(out, buyer.getName());
+                writeString(out, buyer.getPhone());
+            }
+
+            List<BillItem> items = bill.getItems();
+            out.writeInt(items.size());
+            for (BillItem item : items) {
+                writeString(out, item.getProductName());
+                out.writeDouble(item.getQuantity());
+                out.writeDouble(item.getUnitPrice());
+            }
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Decode bytes produced by {@link #encode(Bill)}.
+     */
+    public static Bill decode(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            byte version = in.readByte();
+            if (version != VERSION) throw new IOException("Unsupported bill record version: " + version);
+
+            Bill bill = new Bill();
+            bill.setId(in.readInt());
+            bill.setBillDate(readString(in));
+            bill.setSubtotal(in.readDouble());
+            bill.setDiscountPercent(in.readDouble());
+            bill.setDiscountAmount(in.readDouble());
+            bill.setGrandTotal(in.readDouble());
+
+            if (in.readBoolean()) {
+                int buyerId = in.readInt();
+                bill.setBuyer(new Buyer(buyerId, readString(in), readString(in)));
+            }
+
+            int count = in.readInt();
+            List<BillItem> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String name = readString(in);
+                double qty = in.readDouble();
+                double price = in.readDouble();
+                items.add(new BillItem(name, qty, price));
+            }
+            bill.setItems(items);
+            return bill;
+        }
+    }
+
+    /**
+     * Bill id of an encoded record without decoding the rest (version byte, then the id).
+     */
+    public static int peekId(byte[] payload) {
+        return ((payload[1] & 0xFF) << 24) | ((payload[2] & 0xFF) << 16) | ((payload[3] & 0xFF) << 8) | (payload[4] & 0xFF);
+    }
+
+    /**
+     * Write one length-prefixed, checksummed frame.
+     */
+    public static void writeFrame(DataOutputStream out, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.writeLong(crc.getValue());
+    }
+
+    /**
+     * Size on disk of a frame carrying payloadLength bytes.
+     */
+    public static int frameSize(int payloadLength) {
+        return 4 + payloadLength + 8;
+    }
+
+    /**
+     * Read the next frame. Returns null at end of file or at a torn/corrupt tail.
+     */
+    public static byte[] readFrame(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException eof) {
+            return null;
+        }
+        if (length < 0 || length > MAX_FRAME) return null;
+
+        byte[] payload = new byte[length];
+        try {
+            in.readFully(payload);
+            long expected = in.readLong();
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if (crc.getValue() != expected) return null;
+        } catch (EOFException eof) {
+            return null;
+        }
+        return payload;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,115 @@
+package util;
+
+import dao.BillDAO;
+import model.Bill;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * BulkPdfExporter - every bill matching a filter rendered to PDF and packed into one ZIP.
+ *
+ * Bills are loaded and rendered on a fixed pool (one thread per core). Only a small window of bills
+ * is in flight at a time, and finished PDFs are written to the ZIP strictly in bill-number order,
+ * so memory stays bounded no matter how many bills are exported.
+ */
+public final class BulkPdfExporter {
+
+    private static final Logger LOGGER = Logger.getLogger(BulkPdfExporter.class.getName());
+
+    /** Progress callback: bills written so far, total bills. */
+    public interface Progress {
+        void update(int done, int total);
+    }
+
+    private BulkPdfExporter() {}
+
+    /**
+     * Export bills matching the filters (same meaning as BillDAO.getBills) to zipFile.
+     * Once cancelled reports true, the partial ZIP is deleted and CancellationException is thrown.
+     *
+     * @return number of bills exported
+     */
+    public static int exportZip(String buyerName, LocalDate dateFrom, LocalDate dateTo, Path zipFile,
+                                PDFRenderContext ctx, Progress progress, BooleanSupplier cancelled)
+            throws IOException, SQLException {
+        BillDAO billDAO = new BillDAO();
+
+        // summaries only (no items): cheap even for a whole year
+        List<Bill> bills = billDAO.getBills(null, buyerName, dateFrom, dateTo);
+        bills.sort(Comparator.comparingInt(Bill::getId));
+        int total = bills.size();
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        int window = threads * 2;
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "pdf-export");
+            t.setDaemon(true);
+            return t;
+        });
+
+        Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+        int next = 0;
+        int done = 0;
+        boolean completed = false;
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(zipFile)))) {
+            while (done < total) {
+                if (cancelled.getAsBoolean()) throw new CancellationException("Export cancelled");
+
+                while (next < total && inFlight.size() < window) {
+                    int billId = bills.get(next++).getId();
+                    inFlight.add(pool.submit(() -> render(billDAO, billId, ctx)));
+                }
+
+                byte[] pdf = await(inFlight.poll());
+                zip.putNextEntry(new ZipEntry("bill-" + bills.get(done).getId() + ".pdf"));
+                zip.write(pdf);
+                zip.closeEntry();
+                done++;
+                if (progress != null) progress.update(done, total);
+            }
+            completed = true;
+        } finally {
+            for (Future<byte[]> f : inFlight) f.cancel(true);
+            pool.shutdownNow();
+            if (!completed) Files.deleteIfExists(zipFile);
+        }
+        LOGGER.info("Exported " + total + " bill PDF(s) to " + zipFile);
+        return total;
+    }
+
+    private static byte[] render(BillDAO billDAO, int billId, PDFRenderContext ctx) throws IOException, SQLException {
+        // bills exported before come straight from RenderCache (no query, no rendering)
+        return RenderCache.getOrRender(RenderCache.Kind.PDF, billId, PDFGenerator.cacheVariant(ctx), () -> {
+            Bill full = billDAO.getBillById(billId);
+            if (full == null) throw new IOException("Bill #" + billId + " not found");
+            return PDFGenerator.toBytes(full, ctx);
+        });
+    }
+
+    private static byte[] await(Future<byte[]> f) throws IOException, SQLException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Export interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof SQLException) throw (SQLException) cause;
+            throw new IOException("Rendering failed", cause);
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package util;
+
+import application.AppConfig;
+import application.DBConnection;
+import model.Bill;
+import model.BillItem;
+import model.Buyer;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * ContinuousBackup - continuous protection for the runtime DB.
+ *
+ * When "backup.mirror.dir" is set (e.g. a folder on a USB drive), every bill committed by
+ * BillDAO.saveBill is appended as a checksummed record to a daily change-log segment in that
+ * folder. A consistent base snapshot (VACUUM INTO) is written when the mirror starts and again
+ * once it is older than "backup.base.days". Bills are never edited after save, so base + log is
+ * enough to rebuild the DB as it was at any moment: see {@link #replay(Path, Path, LocalDateTime)}.
+ *
+ * Save-path cost is only encoding the bill and queueing the bytes; a single background writer
+ * appends and fsyncs in batches. Both costs are counted and logged (see {@link #statsSummary()}).
+ *
+ * Replay from the command line:
+ *   java -cp RetailBillingSystem.jar;sqlite-jdbc.jar util.ContinuousBackup <mirrorDir> <targetDb> [yyyy-MM-ddTHH:mm:ss]
+ */
+public final class ContinuousBackup {
+
+    private static final Logger LOGGER = Logger.getLogger(ContinuousBackup.class.getName());
+
+    public static final String KEY_MIRROR_DIR = "backup.mirror.dir";
+    private static final String KEY_BASE_DAYS = "backup.base.days";
+
+    private static final DateTimeFormatter TF = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final String BASE_PREFIX = "base-";
+    private static final String LOG_PREFIX = "changes-";
+
+    // Queued after the last record to let the writer finish (interrupting would close its FileChannel)
+    private static final byte[] STOP = new byte[0];
+
+    private static volatile Path mirrorDir;
+    private static BlockingQueue<byte[]> queue;
+    private static Thread writer;
+    private static boolean shutdownHookInstalled;
+
+    // Overhead counters (nanoseconds)
+    private static final AtomicLong records = new AtomicLong();
+    private static final AtomicLong savePathNanos = new AtomicLong();
+    private static final AtomicLong writeNanos = new AtomicLong();
+    private static final AtomicLong bytesWritten = new AtomicLong();
+    private static final AtomicLong fsyncs = new AtomicLong();
+
+    private ContinuousBackup() {}
+
+    /**
+     * Start mirroring if a mirror folder is configured. Safe to call more than once.
+     */
+    public static synchronized void start() {
+        String dir = AppConfig.get(KEY_MIRROR_DIR, null);
+        if (dir == null) {
+            LOGGER.fine("Continuous backup disabled (no " + KEY_MIRROR_DIR + ")");
+            return;
+        }
+        if (mirrorDir != null && mirrorDir.equals(Paths.get(dir))) return;
+        stop();
+
+        Path target = Paths.get(dir);
+        try {
+            Files.createDirectories(target);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Continuous backup disabled: cannot create " + target, e);
+            return;
+        }
+
+        queue = new LinkedBlockingQueue<>();
+        writer = new Thread(() -> writerLoop(target, queue), "backup-mirror-writer");
+        writer.setDaemon(true);
+        writer.start();
+        // Enable capture BEFORE the base snapshot: overlap is skipped at replay, a gap would not be.
+        mirrorDir = target;
+
+        if (!shutdownHookInstalled) {
+            // Exit is System.exit from the main menu: drain the queue before the JVM goes
+            Runtime.getRuntime().addShutdownHook(new Thread(ContinuousBackup::stop, "backup-mirror-shutdown"));
+            shutdownHookInstalled = true;
+        }
+
+        Thread base = new Thread(() -> ensureBaseSnapshot(target), "backup-mirror-base");
+        base.setDaemon(true);
+        base.start();
+
+        LOGGER.info("Continuous backup mirroring to " + target.toAbsolutePath());
+    }
+
+    /**
+     * Stop mirroring; records already queued are written before the writer exits.
+     */
+    public static synchronized void stop() {
+        if (writer == null) return;
+        mirrorDir = null;
+        queue.add(STOP);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+        queue = null;
+        LOGGER.info(statsSummary());
+    }
+
+    public static boolean isEnabled() {
+        return mirrorDir != null;
+    }
+
+    /**
+     * Called by BillDAO.saveBill right after commit. The bill must carry its generated id
+     * (and buyer id, if any). Never throws: a mirror problem must not fail a saved bill.
+     */
+    public static void onBillCommitted(Bill bill) {
+        if (mirrorDir == null) return;
+        long t0 = System.nanoTime();
+        try {
+            BlockingQueue<byte[]> q = queue;
+            if (q != null) q.add(BillRecordCodec.encode(bill));
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Could not queue bill #" + bill.getId() + " for continuous backup", e);
+        } finally {
+            long took = System.nanoTime() - t0;
+            records.incrementAndGet();
+            savePathNanos.addAndGet(took);
+            LOGGER.fine(() -> "Bill #" + bill.getId() + " queued for mirror in " + (took / 1000) + " us");
+        }
+    }
+
+    /**
+     * Human-readable overhead numbers since startup.
+     */
+    public static String statsSummary() {
+        long n = records.get();
+        long syncs = fsyncs.get();
+        return String.format("Continuous backup: %d records, %d bytes, save-path avg %d us, write+fsync avg %d us over %d syncs",
+                n, bytesWritten.get(),
+                n == 0 ? 0 : savePathNanos.get() / n / 1000,
+                syncs == 0 ? 0 : writeNanos.get() / syncs / 1000,
+                syncs);
+    }
+
+    /* ================= WRITER ================= */
+
+    private static void writerLoop(Path dir, BlockingQueue<byte[]> q) {
+        List<byte[]> batch = new ArrayList<>();
+        FileChannel channel = null;
+        String openDay = null;
+        boolean running = true;
+        try {
+            while (running) {
+                try {
+                    batch.add(q.take());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                q.drainTo(batch);
+                if (batch.remove(STOP)) running = false;
+                if (batch.isEmpty()) continue;
+
+                String day = LocalDateTime.now().format(DAY);
+                if (!day.equals(openDay)) {
+                    if (channel != null) channel.close();
+                    channel = FileChannel.open(dir.resolve(LOG_PREFIX + day + ".log"),
+                            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                    openDay = day;
+                }
+
+                long t0 = System.nanoTime();
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                try (DataOutputStream out = new DataOutputStream(baos)) {
+                    for (byte[] payload : batch) BillRecordCodec.writeFrame(out, payload);
+                }
+                ByteBuffer buf = ByteBuffer.wrap(baos.toByteArray());
+                while (buf.hasRemaining()) channel.write(buf);
+                channel.force(false);
+                writeNanos.addAndGet(System.nanoTime() - t0);
+                bytesWritten.addAndGet(baos.size());
+                fsyncs.incrementAndGet();
+                batch.clear();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Continuous backup writer stopped; " + batch.size() + " record(s) not mirrored", e);
+        } finally {
+            if (channel != null) {
+                try { channel.close(); } catch (IOException ignored) {}
+            }
+        }
+    }
+
+    private static void ensureBaseSnapshot(Path dir) {
+        try {
+            LocalDateTime latest = listBases(dir).stream()
+                    .map(ContinuousBackup::baseTime)
+                    .max(LocalDateTime::compareTo)
+                    .orElse(null);
+            int maxAgeDays = AppConfig.getInt(KEY_BASE_DAYS, 7);
+            if (latest != null && latest.isAfter(LocalDateTime.now().minusDays(maxAgeDays))) return;
+
+            String name = BASE_PREFIX + LocalDateTime.now().format(TF) + ".db";
+            DBBackupUtil.snapshotDatabase(dir.resolve(name));
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Continuous backup base snapshot failed", e);
+        }
+    }
+
+    /* ================= REPLAY ================= */
+
+    /**
+     * Rebuild a DB from the mirror as it was at upTo (null = everything mirrored).
+     * Uses the newest base snapshot taken at or before upTo, then applies logged bills
+     * newer than the snapshot whose bill date is not after upTo.
+     *
+     * @return number of bills applied on top of the base snapshot
+     */
+    public static int replay(Path dir, Path targetDb, LocalDateTime upTo) throws IOException, SQLException {
+        LocalDateTime limit = upTo != null ? upTo : LocalDateTime.MAX;
+        Path base = listBases(dir).stream()
+                .filter(p -> !baseTime(p).isAfter(limit))
+                .max((a, b) -> baseTime(a).compareTo(baseTime(b)))
+                .orElseThrow(() -> new IOException("No base snapshot in " + dir + " at or before " + upTo));
+
+        Path parent = targetDb.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Files.copy(base, targetDb, StandardCopyOption.REPLACE_EXISTING);
+        LOGGER.info("Replay: base snapshot " + base.getFileName() + " -> " + targetDb);
+
+        List<Path> segments;
+        try (Stream<Path> s = Files.list(dir)) {
+            segments = s.filter(p -> p.getFileName().toString().startsWith(LOG_PREFIX)).sorted().toList();
+        }
+
+        int applied = 0;
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + targetDb.toAbsolutePath())) {
+            DBConnection.createSchema(conn);
+            int baseMaxId;
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT IFNULL(MAX(bill_id), 0) FROM Bills")) {
+                baseMaxId = rs.next() ? rs.getInt(1) : 0;
+            }
+
+            conn.setAutoCommit(false);
+            for (Path segment : segments) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+                    byte[] payload;
+                    while ((payload = BillRecordCodec.readFrame(in)) != null) {
+                        Bill bill = BillRecordCodec.decode(payload);
+                        if (bill.getId() <= baseMaxId) continue;
+                        if (bill.getBillDate() != null && LocalDateTime.parse(bill.getBillDate()).isAfter(limit)) continue;
+                        insertBill(conn, bill);
+                        applied++;
+                    }
+                }
+            }
+            // replayed rows (and a pre-hash-chain base) get their links recomputed
+            BillHashChain.sealMissing(conn);
+            conn.commit();
+        }
+        LOGGER.info("Replay: applied " + applied + " bill(s) from change log");
+        return applied;
+    }
+
+    private static void insertBill(Connection conn, Bill bill) throws SQLException {
+        Buyer buyer = bill.getBuyer();
+        if (buyer != null) {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT OR IGNORE INTO Buyers(buyer_id, name, phone) VALUES (?, ?, ?)")) {
+                ps.setInt(1, buyer.getId());
+                ps.setString(2, buyer.getName());
+                ps.setString(3, buyer.getPhone());
+                ps.executeUpdate();
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT OR IGNORE INTO Bills(bill_id, bill_date, total_amount, buyer_id) VALUES (?, ?, ?, ?)")) {
+            ps.setInt(1, bill.getId());
+            ps.setString(2, bill.getBillDate());
+            ps.setDouble(3, bill.getGrandTotal());
+            if (buyer != null) {
+                ps.setInt(4, buyer.getId());
+            } else {
+                ps.setNull(4, Types.INTEGER);
+            }
+            if (ps.executeUpdate() == 0) return; // already present
+        }
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO BillItems (bill_id, item_name, quantity, price) VALUES (?, ?, ?, ?)")) {
+            for (BillItem item : bill.getItems()) {
+                ps.setInt(1, bill.getId());
+                ps.setString(2, item.getProductName());
+                ps.setDouble(3, item.getQuantity());
+                ps.setDouble(4, item.getUnitPrice());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private static List<Path> listBases(Path dir) throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.filter(p -> {
+                String n = p.getFileName().toString();
+                return n.startsWith(BASE_PREFIX) && n.endsWith(".db");
+            }).toList();
+        }
+    }
+
+    private static LocalDateTime baseTime(Path base) {
+        String n = base.getFileName().toString();
+        return LocalDateTime.parse(n.substring(BASE_PREFIX.length(), n.length() - 3), TF);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: util.ContinuousBackup <mirrorDir> <targetDb> [yyyy-MM-ddTHH:mm:ss]");
+            System.exit(2);
+        }
+        LocalDateTime upTo = args.length > 2 ? LocalDateTime.parse(args[2]) : null;
+        int applied = replay(Paths.get(args[0]), Paths.get(args[1]), upTo);
+        System.out.println("Rebuilt " + args[1] + " (" + applied + " bill(s) replayed from change log)");
+    }
+}
@@ -4,6 +4,10 @@ import application.DBConnection;
 
 import java.io.IOException;
 import java.nio.file.*;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.logging.Logger;
@@ -72,6 +76,16 @@ public final class DBBackupUtil {
         Path parent = destination.getParent();
         if (parent != null) Files.createDirectories(parent);
 
+        // The DB runs in WAL mode: fold the WAL into the main file first or recent bills would be missing
+        if (source.equals(runtimeDb)) {
+            try (Connection conn = DBConnection.getBackgroundConnection();
+                 Statement st = conn.createStatement()) {
+                st.execute("PRAGMA wal_checkpoint(FULL);");
+            } catch (SQLException e) {
+                LOGGER.warning("WAL checkpoint before backup failed: " + e.getMessage());
+            }
+        }
+
         // perform copy (replace if exists)
         // Note: copying a live SQLite DB file is usually fine but can capture in-flight changes.
         // For a fully consistent backup while DB is in use, consider using SQLite online backup API.
@@ -80,4 +94,29 @@ public final class DBBackupUtil {
         LOGGER.info("Database backup completed. Source: " + source.toAbsolutePath() + " -> " + destination.toAbsolutePath());
         return destination;
     }
+
+    /**
+     * Write a transactionally consistent copy of the live DB using SQLite's VACUUM INTO.
+     * Unlike a file copy this is safe while bills are being saved.
+     *
+     * @param destination target file (replaced if it exists)
+     * @return Path of the created snapshot
+     * @throws IOException on failure
+     */
+    public static Path snapshotDatabase(Path destination) throws IOException {
+        Path parent = destination.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Files.deleteIfExists(destination);
+
+        try (Connection conn = DBConnection.getBackgroundConnection();
+             PreparedStatement ps = conn.prepareStatement("VACUUM INTO ?")) {
+            ps.setString(1, destination.toAbsolutePath().toString());
+            ps.execute();
+        } catch (SQLException e) {
+            throw new IOException("Database snapshot failed: " + e.getMessage(), e);
+        }
+
+        LOGGER.info("Database snapshot written to " + destination.toAbsolutePath());
+        return destination;
+    }
 }
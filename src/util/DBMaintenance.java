@@ -0,0 +1,223 @@
+package util;
+
+import application.AppConfig;
+import application.DBConnection;
+
+import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * DBMaintenance - keeps the SQLite file healthy without the cashier noticing.
+ *
+ * A background check runs every minute. When no DAO has touched the DB for "maintenance.idle.seconds"
+ * (default 120) and the last run is older than "maintenance.interval.hours" (default 24), it runs:
+ * ANALYZE, PRAGMA optimize, PRAGMA incremental_vacuum and a WAL checkpoint (TRUNCATE).
+ * Steps stop early if the shop gets busy again. Each run is recorded in MaintenanceLog
+ * with its duration and the bytes vacuum freed from the database (page_count * page_size before
+ * and after; the WAL emptied by the checkpoint is not counted).
+ */
+public final class DBMaintenance {
+
+    private static final Logger LOGGER = Logger.getLogger(DBMaintenance.class.getName());
+    private static final DateTimeFormatter ISO = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final DateTimeFormatter DISPLAY = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    // pages freed per write transaction by incremental_vacuum
+    private static final int VACUUM_CHUNK_PAGES = 100;
+
+    private static ScheduledExecutorService scheduler;
+
+    private DBMaintenance() {}
+
+    /**
+     * Start the idle-time scheduler (daemon thread). Safe to call more than once.
+     */
+    public static synchronized void start() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-maintenance");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(DBMaintenance::runIfIdle, 1, 1, TimeUnit.MINUTES);
+    }
+
+    private static void runIfIdle() {
+        try {
+            long idleMs = DBConnection.getIdleMillis();
+            if (idleMs < TimeUnit.SECONDS.toMillis(AppConfig.getLong("maintenance.idle.seconds", 120))) return;
+
+            LocalDateTime last = lastRunTime();
+            long intervalHours = AppConfig.getLong("maintenance.interval.hours", 24);
+            if (last != null && last.isAfter(LocalDateTime.now().minusHours(intervalHours))) return;
+
+            runNow();
+        } catch (Exception e) {
+            // never let an exception cancel the scheduled task
+            LOGGER.log(Level.WARNING, "Database maintenance failed", e);
+        }
+    }
+
+    /**
+     * Run all maintenance steps now (on the calling thread) and record the run.
+     */
+    public static void runNow() throws SQLException {
+        long t0 = System.nanoTime();
+        long activityMark = DBConnection.getIdleMillis();
+        List<String> done = new ArrayList<>();
+
+        try (Connection conn = DBConnection.getBackgroundConnection()) {
+            long sizeBefore = databaseBytes(conn);
+
+            String[][] steps = {
+                    {"analyze", "ANALYZE;"},
+                    {"optimize", "PRAGMA optimize;"},
+                    {"incremental_vacuum", "PRAGMA incremental_vacuum;"},
+                    {"checkpoint", "PRAGMA wal_checkpoint(TRUNCATE);"}
+            };
+            for (String[] step : steps) {
+                // a DAO call since we started resets the idle timer -> stop, try again next idle period
+                if (DBConnection.getIdleMillis() < activityMark) {
+                    done.add("interrupted by activity");
+                    break;
+                }
+                activityMark = DBConnection.getIdleMillis();
+                if (step[0].equals("incremental_vacuum")) {
+                    if (!incrementalVacuum(conn, activityMark)) {
+                        done.add("incremental_vacuum (partial)");
+                        done.add("interrupted by activity");
+                        break;
+                    }
+                } else {
+                    execute(conn, step[1]);
+                }
+                done.add(step[0]);
+            }
+
+            long reclaimed = Math.max(0, sizeBefore - databaseBytes(conn));
+            long durationMs = (System.nanoTime() - t0) / 1_000_000L;
+            String details = String.join(",", done);
+
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO MaintenanceLog (run_at, duration_ms, bytes_reclaimed, details) VALUES (?, ?, ?, ?)")) {
+                ps.setString(1, LocalDateTime.now().format(ISO));
+                ps.setLong(2, durationMs);
+                ps.setLong(3, reclaimed);
+                ps.setString(4, details);
+                ps.executeUpdate();
+            }
+            LOGGER.info("Database maintenance done in " + durationMs + " ms, reclaimed " + reclaimed + " bytes (" + details + ")");
+        }
+    }
+
+    /**
+     * Run a statement and step through any rows it returns: pragmas such as incremental_vacuum
+     * only do their work while being stepped, and an open cursor would block the log insert.
+     */
+    private static void execute(Connection conn, String sql) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            if (st.execute(sql)) {
+                try (ResultSet rs = st.getResultSet()) {
+                    while (rs.next()) {
+                        // drain
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * incremental_vacuum frees one page per step, but the driver steps a pragma that returns no
+     * columns only once: run it once per free page. Pages are freed VACUUM_CHUNK_PAGES per
+     * transaction, so a save never waits long for the write lock, and the run stops between
+     * chunks as soon as a DAO call is seen.
+     *
+     * @return false if stopped early because of activity
+     */
+    private static boolean incrementalVacuum(Connection conn, long activityMark) throws SQLException {
+        long free = pragmaLong(conn, "PRAGMA freelist_count;");
+        while (free > 0) {
+            if (DBConnection.getIdleMillis() < activityMark) return false;
+            activityMark = DBConnection.getIdleMillis();
+
+            long chunk = Math.min(free, VACUUM_CHUNK_PAGES);
+            conn.setAutoCommit(false);
+            try {
+                for (long i = 0; i < chunk; i++) {
+                    // closed each time: a statement left mid-step would block the commit
+                    try (Statement st = conn.createStatement()) {
+                        st.execute("PRAGMA incremental_vacuum(1);");
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            free -= chunk;
+        }
+        return true;
+    }
+
+    /**
+     * Time of the last recorded run, or null if maintenance never ran.
+     */
+    public static LocalDateTime lastRunTime() throws SQLException {
+        try (Connection conn = DBConnection.getBackgroundConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT run_at FROM MaintenanceLog ORDER BY run_id DESC LIMIT 1")) {
+            return rs.next() ? LocalDateTime.parse(rs.getString(1), ISO) : null;
+        }
+    }
+
+    /**
+     * One-line status for the main menu, e.g. "Maintenance last ran 2026-01-05 21:14 (0.8 s, 120 KB reclaimed)".
+     */
+    public static String statusText() {
+        try (Connection conn = DBConnection.getBackgroundConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(
+                     "SELECT run_at, duration_ms, bytes_reclaimed FROM MaintenanceLog ORDER BY run_id DESC LIMIT 1")) {
+            if (!rs.next()) return "Maintenance has not run yet";
+            LocalDateTime at = LocalDateTime.parse(rs.getString("run_at"), ISO);
+            long ms = rs.getLong("duration_ms");
+            long kb = rs.getLong("bytes_reclaimed") / 1024;
+            String ago = describeAge(Duration.between(at, LocalDateTime.now()));
+            return String.format("Maintenance last ran %s, %s (%.1f s, %d KB reclaimed)",
+                    at.format(DISPLAY), ago, ms / 1000.0, kb);
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Maintenance status unavailable", e);
+            return "Maintenance status unavailable";
+        }
+    }
+
+    private static String describeAge(Duration d) {
+        if (d.toDays() > 0) return d.toDays() + " day(s) ago";
+        if (d.toHours() > 0) return d.toHours() + " hour(s) ago";
+        return "just now";
+    }
+
+    /** Size of the database itself (all its pages, wherever they currently live), without the WAL. */
+    private static long databaseBytes(Connection conn) throws SQLException {
+        return pragmaLong(conn, "PRAGMA page_count;") * pragmaLong(conn, "PRAGMA page_size;");
+    }
+
+    private static long pragmaLong(Connection conn, String sql) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0L;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package util;
+
+import application.AppConfig;
+import application.DBConnection;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * DraftJournal - crash-safe autosave of the bill being entered on Create Bill.
+ *
+ * Every edit (line set / removed, buyer or discount changed) is appended as a small checksummed
+ * frame (BillRecordCodec framing) to an in-memory buffer: a few microseconds, no disk access on
+ * the FX thread. A daemon thread writes the buffer out and fsyncs every draft.sync.ms, so a crash
+ * or power cut loses at most that much typing. When the file outgrows draft.compact.kb it is
+ * rewritten as one record per current line. Saving the bill clears the draft; a draft left over
+ * at startup is offered for recovery. Replay stops at the first torn frame, like BillJournal.
+ *
+ * Settings (AppConfig):
+ *  - draft.autosave: true (default) / false
+ *  - draft.sync.ms: write + fsync interval, default 500
+ *  - draft.compact.kb: file size that triggers a rewrite, default 64
+ */
+public final class DraftJournal {
+
+    private static final Logger LOGGER = Logger.getLogger(DraftJournal.class.getName());
+
+    public static final String KEY_ENABLED = "draft.autosave";
+    public static final String KEY_SYNC_MS = "draft.sync.ms";
+    public static final String KEY_COMPACT_KB = "draft.compact.kb";
+
+    public static final String FILE_NAME = "draft.journal";
+
+    /** Bill-level inputs kept in the draft. */
+    public enum Field { BUYER_NAME, BUYER_PHONE, DISCOUNT }
+
+    /** One bill line as last entered. */
+    public record Line(String name, double quantity, double unitPrice) {}
+
+    private static final byte OP_LINE = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final byte OP_FIELD = 3;
+
+    private static DraftJournal instance;
+
+    private final Path file;
+    private boolean enabled;
+    private final long compactBytes;
+
+    // guarded by this: current draft state and not yet written frames
+    private final Map<Integer, Line> lines = new LinkedHashMap<>();
+    private final String[] fields = new String[Field.values().length];
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(4096);
+    private final DataOutputStream pendingOut = new DataOutputStream(pending);
+    private final ByteArrayOutputStream scratch = new ByteArrayOutputStream(128);
+    private final DataOutputStream scratchOut = new DataOutputStream(scratch);
+    private boolean truncate;
+
+    // flusher thread only
+    private FileChannel channel;
+    private long fileBytes;
+
+    private DraftJournal(Path file, boolean enabled) {
+        this.file = file;
+        this.enabled = enabled;
+        this.compactBytes = Math.max(4, AppConfig.getLong(KEY_COMPACT_KB, 64)) * 1024;
+        if (!enabled) return;
+
+        try {
+            fileBytes = replay();
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (channel.size() > fileBytes) {
+                LOGGER.warning("Draft journal: dropping " + (channel.size() - fileBytes) + " byte(s) of torn tail");
+                channel.truncate(fileBytes);
+            }
+            channel.position(fileBytes);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Draft autosave disabled", e);
+            this.enabled = false;
+            lines.clear();
+            Arrays.fill(fields, null);
+            return;
+        }
+
+        long syncMs = Math.max(50, AppConfig.getLong(KEY_SYNC_MS, 500));
+        ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "draft-journal");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, syncMs, syncMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** The journal of this workstation (<app data>/draft.journal), opened and replayed on first use. */
+    public static synchronized DraftJournal get() {
+        if (instance == null) {
+            instance = new DraftJournal(DBConnection.getAppDataDir().resolve(FILE_NAME),
+                    AppConfig.getBoolean(KEY_ENABLED, true));
+        }
+        return instance;
+    }
+
+    /* ================= PUBLIC API (FX thread) ================= */
+
+    /** True if an unsaved bill with at least one non-empty line is in the journal. */
+    public synchronized boolean hasDraft() {
+        for (Line l : lines.values()) {
+            if (l.name() != null && !l.name().isBlank()) return true;
+        }
+        return false;
+    }
+
+    /** Lines of the draft in entry order. */
+    public synchronized List<Line> lines() {
+        return new ArrayList<>(lines.values());
+    }
+
+    /** Value of a bill-level field, or null if never entered. */
+    public synchronized String field(Field f) {
+        return fields[f.ordinal()];
+    }
+
+    /** Line lineId (a number the caller keeps per row) now has these values. */
+    public synchronized void setLine(int lineId, String name, double quantity, double unitPrice) {
+        if (!enabled) return;
+        Line line = new Line(name, quantity, unitPrice);
+        if (line.equals(lines.put(lineId, line))) return;
+        try {
+            scratchOut.writeByte(OP_LINE);
+            scratchOut.writeInt(lineId);
+            writeString(scratchOut, name);
+            scratchOut.writeDouble(quantity);
+            scratchOut.writeDouble(unitPrice);
+            append();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in-memory streams: not expected
+        }
+    }
+
+    public synchronized void removeLine(int lineId) {
+        if (!enabled || lines.remove(lineId) == null) return;
+        try {
+            scratchOut.writeByte(OP_REMOVE);
+            scratchOut.writeInt(lineId);
+            append();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized void setField(Field f, String value) {
+        if (!enabled || Objects.equals(fields[f.ordinal()], value)) return;
+        fields[f.ordinal()] = value;
+        try {
+            scratchOut.writeByte(OP_FIELD);
+            scratchOut.writeByte(f.ordinal());
+            writeString(scratchOut, value);
+            append();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Draft saved as a bill (or discarded): forget it; the file is emptied on the next sync. */
+    public synchronized void clear() {
+        lines.clear();
+        Arrays.fill(fields, null);
+        pending.reset();
+        truncate = true;
+    }
+
+    /* ================= internals ================= */
+
+    /** Frame the record in scratch and queue it. Caller holds the lock. */
+    private void append() throws IOException {
+        BillRecordCodec.writeFrame(pendingOut, scratch.toByteArray());
+        scratch.reset();
+    }
+
+    /** Write queued frames and fsync; rewrite the file when it has grown too big. */
+    private void flush() {
+        byte[] data;
+        boolean cut;
+        synchronized (this) {
+            if (!enabled || (pending.size() == 0 && !truncate)) return;
+            data = pending.toByteArray();
+            pending.reset();
+            cut = truncate;
+            truncate = false;
+        }
+        try {
+            if (cut) {
+                channel.truncate(0);
+                channel.position(0);
+                fileBytes = 0;
+            }
+            ByteBuffer buf = ByteBuffer.wrap(data);
+            while (buf.hasRemaining()) channel.write(buf);
+            channel.force(false);
+            fileBytes += data.length;
+            if (fileBytes > compactBytes) compact();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Draft journal write failed", e);
+        }
+    }
+
+    /**
+     * Replace the file by the current state (one frame per line and field), written to a temp file
+     * and moved over the journal, so a crash during compaction leaves the old or the new file.
+     */
+    private void compact() throws IOException {
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(snapshot);
+        synchronized (this) {
+            for (Map.Entry<Integer, Line> e : lines.entrySet()) {
+                scratchOut.writeByte(OP_LINE);
+                scratchOut.writeInt(e.getKey());
+                writeString(scratchOut, e.getValue().name());
+                scratchOut.writeDouble(e.getValue().quantity());
+                scratchOut.writeDouble(e.getValue().unitPrice());
+                BillRecordCodec.writeFrame(out, scratch.toByteArray());
+                scratch.reset();
+            }
+            for (Field f : Field.values()) {
+                if (fields[f.ordinal()] == null) continue;
+                scratchOut.writeByte(OP_FIELD);
+                scratchOut.writeByte(f.ordinal());
+                writeString(scratchOut, fields[f.ordinal()]);
+                BillRecordCodec.writeFrame(out, scratch.toByteArray());
+                scratch.reset();
+            }
+            // the snapshot already contains everything queued so far
+            pending.reset();
+            truncate = false;
+        }
+
+        Path tmp = file.resolveSibling(FILE_NAME + ".tmp");
+        boolean moved = false;
+        try {
+            Files.write(tmp, snapshot.toByteArray());
+            try (FileChannel c = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                c.force(true);
+            }
+            channel.close();
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+        } finally {
+            if (!moved) requeue(snapshot.toByteArray());
+            reopen();
+        }
+    }
+
+    /** Compaction failed: the old file lacks the frames taken for it, so rewrite it in full next time. */
+    private synchronized void requeue(byte[] snapshot) {
+        byte[] later = pending.toByteArray();
+        pending.reset();
+        pending.write(snapshot, 0, snapshot.length);
+        pending.write(later, 0, later.length);
+        truncate = true;
+    }
+
+    /** Open the journal again after compaction; without it autosave cannot go on, so it is turned off. */
+    private void reopen() {
+        try {
+            if (!channel.isOpen()) channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            fileBytes = channel.size();
+            channel.position(fileBytes);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Draft autosave turned off: " + file + " could not be reopened", e);
+            synchronized (this) {
+                enabled = false;
+                pending.reset();
+                truncate = false;
+            }
+        }
+    }
+
+    /** Rebuild the draft state from the file; returns the length of the intact prefix. */
+    private long replay() throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        if (!Files.exists(file)) return 0L;
+        long length = 0L;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            byte[] payload;
+            while ((payload = BillRecordCodec.readFrame(in)) != null) {
+                apply(new DataInputStream(new ByteArrayInputStream(payload)));
+                length += BillRecordCodec.frameSize(payload.length);
+            }
+        }
+        if (hasDraft()) LOGGER.info("Draft journal: unsaved bill with " + lines.size() + " line(s) found");
+        return length;
+    }
+
+    private synchronized void apply(DataInputStream in) throws IOException {
+        switch (in.readByte()) {
+            case OP_LINE -> {
+                int id = in.readInt();
+                lines.put(id, new Line(readString(in), in.readDouble(), in.readDouble()));
+            }
+            case OP_REMOVE -> lines.remove(in.readInt());
+            case OP_FIELD -> {
+                int f = in.readByte();
+                String value = readString(in);
+                if (f >= 0 && f < fields.length) fields[f] = value;
+            }
+            default -> throw new IOException("Unknown draft record");
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        if (len < 0) return null;
+        byte[] b = new byte[len];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
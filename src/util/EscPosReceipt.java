@@ -0,0 +1,364 @@
+package util;
+
+import application.AppConfig;
+import model.Bill;
+import model.BillItem;
+import model.Buyer;
+
+import javax.imageio.ImageIO;
+import javax.print.*;
+import javax.print.attribute.HashPrintRequestAttributeSet;
+import javax.print.attribute.PrintRequestAttributeSet;
+import javax.print.attribute.standard.JobName;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * EscPosReceipt - a bill as a raw ESC/POS byte stream for thermal receipt printers.
+ *
+ * The printer gets text and commands, not a rasterized A4 page, so there is no Java2D rendering
+ * and no driver-side conversion: building the bytes takes well under a millisecond and the
+ * printer starts feeding right away. Output is plain ASCII in fixed-width columns (PC437 code page),
+ * the logo is optional and converted to a printer bitmap only once.
+ *
+ * Settings (AppConfig):
+ *  - receipt.columns: characters per line in font A (48 for 80 mm paper, 32 for 58 mm), default 48
+ *  - receipt.logo: print the bundled logo, default true
+ *  - receipt.logo.width: logo width in printer dots (multiple of 8), default 256
+ */
+public final class EscPosReceipt {
+
+    private static final Logger LOGGER = Logger.getLogger(EscPosReceipt.class.getName());
+
+    public static final String KEY_COLUMNS = "receipt.columns";
+    public static final String KEY_LOGO = "receipt.logo";
+    public static final String KEY_LOGO_WIDTH = "receipt.logo.width";
+
+    // bump whenever the receipt output changes, so RenderCache stops serving old renderings
+    public static final int TEMPLATE_VERSION = 1;
+
+    private static final int MIN_COLUMNS = 32;
+    private static final int MAX_COLUMNS = 64;
+
+    // number columns of an item line, right-aligned: qty | unit price | total (32 chars in all)
+    private static final int QTY_WIDTH = 7;
+    private static final int PRICE_WIDTH = 12;
+    private static final int TOTAL_WIDTH = 13;
+    private static final int NUMBERS_WIDTH = QTY_WIDTH + PRICE_WIDTH + TOTAL_WIDTH;
+    private static final int MIN_NAME_WIDTH = 8;
+
+    /* ================= ESC/POS commands ================= */
+
+    private static final byte ESC = 0x1B;
+    private static final byte GS = 0x1D;
+    private static final byte LF = 0x0A;
+
+    private static final byte[] INIT = {ESC, '@'};
+    private static final byte[] CODE_PAGE_437 = {ESC, 't', 0};
+    private static final byte[] ALIGN_LEFT = {ESC, 'a', 0};
+    private static final byte[] ALIGN_CENTER = {ESC, 'a', 1};
+    private static final byte[] BOLD_ON = {ESC, 'E', 1};
+    private static final byte[] BOLD_OFF = {ESC, 'E', 0};
+    private static final byte[] SIZE_DOUBLE = {GS, '!', 0x11};
+    private static final byte[] SIZE_NORMAL = {GS, '!', 0x00};
+    private static final byte[] FEED_AND_CUT = {GS, 'V', 66, 3};     // feed 3 lines, partial cut
+
+    // cached GS v 0 raster command for the logo; EMPTY = tried and not available
+    private static final byte[] EMPTY = new byte[0];
+    // width and raster published together: a reader never pairs one width with another's raster
+    private record Logo(int widthDots, byte[] raster) {}
+    private static volatile Logo cachedLogo;
+
+    private EscPosReceipt() {}
+
+    /* ================= PUBLIC API ================= */
+
+    /**
+     * Receipt bytes for bill using the configured paper width and logo setting.
+     */
+    public static byte[] render(Bill bill, String shopName) {
+        return render(bill, shopName, configuredColumns(), AppConfig.getBoolean(KEY_LOGO, true));
+    }
+
+    /**
+     * RenderCache variant of render(bill, shopName): template version plus current settings.
+     */
+    public static String cacheVariant(String shopName) {
+        boolean logo = AppConfig.getBoolean(KEY_LOGO, true);
+        return "receipt-v" + TEMPLATE_VERSION + "|" + (shopName != null ? shopName : BillLayout.DEFAULT_SHOP)
+                + "|" + configuredColumns() + "|" + (logo ? AppConfig.getInt(KEY_LOGO_WIDTH, 256) : 0);
+    }
+
+    private static int configuredColumns() {
+        return Math.max(MIN_COLUMNS, Math.min(MAX_COLUMNS, AppConfig.getInt(KEY_COLUMNS, 48)));
+    }
+
+    /**
+     * Receipt bytes for bill. The bill must have its items loaded.
+     *
+     * @param columns characters per line (32..64)
+     */
+    public static byte[] render(Bill bill, String shopName, int columns, boolean withLogo) {
+        if (bill == null || bill.getItems() == null) {
+            throw new IllegalArgumentException("Bill or items cannot be null");
+        }
+        if (columns < MIN_COLUMNS || columns > MAX_COLUMNS) {
+            throw new IllegalArgumentException("Columns must be between " + MIN_COLUMNS + " and " + MAX_COLUMNS);
+        }
+        String shop = shopName != null ? shopName : BillLayout.DEFAULT_SHOP;
+        Receipt r = new Receipt(columns, 256 + bill.getItems().size() * 2 * (columns + 1));
+
+        r.put(INIT).put(CODE_PAGE_437);
+
+        // ===== HEADER (centered) =====
+        r.put(ALIGN_CENTER);
+        if (withLogo) {
+            byte[] logo = logoRaster(AppConfig.getInt(KEY_LOGO_WIDTH, 256));
+            if (logo.length > 0) r.put(logo).put(LF);
+        }
+        r.put(BOLD_ON).put(SIZE_DOUBLE).line(fit(shop, columns / 2)).put(SIZE_NORMAL).put(BOLD_OFF);
+        for (String line : BillLayout.SHOP_DESC) {
+            r.line(fit(line, columns));
+        }
+        r.put(ALIGN_LEFT).rule('=');
+
+        // ===== BILL DETAILS =====
+        r.line(fit("Bill #: " + bill.getId(), columns));
+        r.line(fit("Date: " + (bill.getBillDate() != null ? bill.getBillDate() : "N/A"), columns));
+        Buyer b = bill.getBuyer();
+        if (b != null) {
+            r.line(fit("Buyer: " + (b.getName() != null ? b.getName() : "Walk-in Customer"), columns));
+            if (b.getPhone() != null && !b.getPhone().isEmpty()) {
+                r.line(fit("Phone: " + b.getPhone(), columns));
+            }
+        }
+        r.rule('-');
+
+        // ===== ITEMS =====
+        // name shares the line with the numbers when it fits, otherwise gets its own line above them
+        int nameWidth = columns - NUMBERS_WIDTH - 1;
+        boolean inlineNames = nameWidth >= MIN_NAME_WIDTH;
+        r.put(BOLD_ON);
+        if (inlineNames) {
+            r.left("Item", nameWidth).text(" ");
+        } else {
+            r.line("Item").spaces(columns - NUMBERS_WIDTH);
+        }
+        r.right("Qty", QTY_WIDTH).right("Price", PRICE_WIDTH).right("Total", TOTAL_WIDTH).put(LF).put(BOLD_OFF);
+        int n = 1;
+        for (BillItem it : bill.getItems()) {
+            String name = n++ + ". " + (it.getProductName() != null ? it.getProductName() : "");
+            if (inlineNames && name.length() <= nameWidth) {
+                r.left(name, nameWidth).text(" ");
+            } else {
+                r.line(fit(name, columns)).spaces(columns - NUMBERS_WIDTH);
+            }
+            r.right(NumberFormatter.quantity(it.getQuantity()), QTY_WIDTH)
+                    .right(NumberFormatter.money(it.getUnitPrice()), PRICE_WIDTH)
+                    .right(NumberFormatter.money(it.getItemTotal()), TOTAL_WIDTH)
+                    .put(LF);
+        }
+        r.rule('-');
+
+        // ===== GRAND TOTAL =====
+        String total = "PKR " + NumberFormatter.money(bill.getGrandTotal());
+        r.put(BOLD_ON).left("Grand Total:", columns - total.length()).text(total).put(LF).put(BOLD_OFF);
+        r.rule('=');
+
+        // ===== FOOTER =====
+        r.put(ALIGN_CENTER).line(fit(BillLayout.footerText(shop), columns)).put(ALIGN_LEFT);
+        r.put(FEED_AND_CUT);
+        return r.toByteArray();
+    }
+
+    /**
+     * Send the receipt to a printer as raw bytes; the driver passes them through untouched.
+     */
+    public static void print(Bill bill, PrintService service, String shopName) throws PrintException {
+        send(render(bill, shopName), "Receipt #" + bill.getId(), service);
+    }
+
+    /**
+     * Send ready-made receipt bytes (e.g. from RenderCache) to a printer.
+     */
+    public static void send(byte[] data, String jobName, PrintService service) throws PrintException {
+        if (service == null) throw new IllegalArgumentException("Print service cannot be null");
+        DocFlavor flavor = DocFlavor.BYTE_ARRAY.AUTOSENSE;
+        if (!service.isDocFlavorSupported(flavor)) {
+            throw new PrintException("Printer " + service.getName() + " does not accept raw data");
+        }
+        long start = System.nanoTime();
+        PrintRequestAttributeSet attrs = new HashPrintRequestAttributeSet();
+        attrs.add(new JobName(jobName, null));
+        service.createPrintJob().print(new SimpleDoc(data, flavor, null), attrs);
+        LOGGER.info(jobName + " sent to " + service.getName() + " ("
+                + data.length + " bytes, " + (System.nanoTime() - start) / 1_000_000 + " ms)");
+    }
+
+    public static void print(Bill bill, PrintService service) throws PrintException {
+        print(bill, service, BillLayout.DEFAULT_SHOP);
+    }
+
+    /**
+     * File sink: write the exact bytes a printer would get (for testing without a printer, or to
+     * send later with e.g. "copy /b file LPT1" / "cat file > /dev/usb/lp0").
+     */
+    public static void writeTo(Bill bill, Path file, String shopName) throws IOException {
+        if (file == null) throw new IllegalArgumentException("Output file cannot be null");
+        Files.write(file, render(bill, shopName));
+    }
+
+    /**
+     * True if service accepts raw byte jobs (most receipt printer drivers and CUPS raw queues).
+     */
+    public static boolean supportsRaw(PrintService service) {
+        return service != null && service.isDocFlavorSupported(DocFlavor.BYTE_ARRAY.AUTOSENSE);
+    }
+
+    /* ================= text helpers ================= */
+
+    /** Shorten s to width characters, marking the cut with "...". */
+    private static String fit(String s, int width) {
+        if (s == null) return "";
+        if (s.length() <= width) return s;
+        return width > 3 ? s.substring(0, width - 3) + "..." : s.substring(0, width);
+    }
+
+    /** Receipt under construction: raw bytes plus fixed-width text helpers (ASCII only). */
+    private static final class Receipt {
+        private final int columns;
+        private byte[] buf;
+        private int len;
+
+        Receipt(int columns, int capacity) {
+            this.columns = columns;
+            this.buf = new byte[capacity];
+        }
+
+        Receipt put(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, len, bytes.length);
+            len += bytes.length;
+            return this;
+        }
+
+        Receipt put(byte b) {
+            ensure(1);
+            buf[len++] = b;
+            return this;
+        }
+
+        Receipt text(String s) {
+            ensure(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                // printable ASCII maps 1:1 in every code page; anything else would print garbage
+                buf[len++] = c >= 0x20 && c < 0x7F ? (byte) c : (byte) '?';
+            }
+            return this;
+        }
+
+        Receipt line(String s) {
+            return text(s).put(LF);
+        }
+
+        Receipt spaces(int n) {
+            ensure(n);
+            Arrays.fill(buf, len, len + n, (byte) ' ');
+            len += n;
+            return this;
+        }
+
+        Receipt left(String s, int width) {
+            String t = fit(s, width);
+            return text(t).spaces(width - t.length());
+        }
+
+        Receipt right(String s, int width) {
+            // numbers are never cut: a wide value pushes the line instead of losing digits
+            return spaces(Math.max(0, width - s.length())).text(s);
+        }
+
+        Receipt rule(char c) {
+            ensure(columns + 1);
+            Arrays.fill(buf, len, len + columns, (byte) c);
+            len += columns;
+            return put(LF);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, len);
+        }
+
+        private void ensure(int extra) {
+            if (len + extra > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+        }
+    }
+
+    /* ================= logo ================= */
+
+    /**
+     * GS v 0 raster command for the bundled logo, scaled to widthDots and thresholded to black
+     * and white. Built on first use and cached; empty if the logo cannot be loaded.
+     */
+    private static byte[] logoRaster(int widthDots) {
+        widthDots = Math.max(8, widthDots / 8 * 8);
+        Logo cached = cachedLogo;
+        if (cached != null && cached.widthDots() == widthDots) return cached.raster();
+
+        synchronized (EscPosReceipt.class) {
+            cached = cachedLogo;
+            if (cached != null && cached.widthDots() == widthDots) return cached.raster();
+            byte[] raster = EMPTY;
+            try (InputStream is = EscPosReceipt.class.getResourceAsStream("/images/logo.png")) {
+                BufferedImage img = is != null ? ImageIO.read(is) : null;
+                if (img != null) raster = toRaster(img, widthDots);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Receipt logo not loaded", e);
+            }
+            cachedLogo = new Logo(widthDots, raster);
+            return raster;
+        }
+    }
+
+    private static byte[] toRaster(BufferedImage img, int widthDots) {
+        int height = Math.max(1, Math.round(img.getHeight() * (widthDots / (float) img.getWidth())));
+        int bytesPerRow = widthDots / 8;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 + bytesPerRow * height);
+        out.write(GS);
+        out.write('v');
+        out.write('0');
+        out.write(0);                       // normal density
+        out.write(bytesPerRow & 0xFF);
+        out.write(bytesPerRow >> 8);
+        out.write(height & 0xFF);
+        out.write(height >> 8);
+
+        byte[] row = new byte[bytesPerRow];
+        for (int y = 0; y < height; y++) {
+            Arrays.fill(row, (byte) 0);
+            int sy = Math.min(img.getHeight() - 1, (int) (y * (img.getHeight() / (float) height)));
+            for (int x = 0; x < widthDots; x++) {
+                int sx = Math.min(img.getWidth() - 1, (int) (x * (img.getWidth() / (float) widthDots)));
+                if (isDark(img.getRGB(sx, sy))) row[x >> 3] |= (byte) (0x80 >> (x & 7));
+            }
+            out.write(row, 0, bytesPerRow);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean isDark(int argb) {
+        int a = argb >>> 24;
+        if (a < 128) return false;          // transparent = paper
+        int r = (argb >> 16) & 0xFF, g = (argb >> 8) & 0xFF, b = argb & 0xFF;
+        return (r * 299 + g * 587 + b * 114) / 1000 < 128;
+    }
+}
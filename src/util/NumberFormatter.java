@@ -0,0 +1,146 @@
+package util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * NumberFormatter - money and quantity text for renderers and tables.
+ *
+ * Replaces DecimalFormat (not thread-safe) and String.format (parses the pattern and allocates a
+ * Formatter on every call). Digits are written straight into a per-thread char buffer, so the only
+ * allocation per call is the returned String; appendMoney(StringBuilder, ...) avoids even that.
+ * Safe to call from any thread. Output is locale-independent: "1,234,567.50".
+ */
+public final class NumberFormatter {
+
+    // below this, value * 1000 stays well inside the exact integer range of a double
+    private static final double FAST_LIMIT = 1e12;
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[48]);
+
+    private NumberFormatter() {}
+
+    /**
+     * Two decimals with thousands grouping, half-up: 1234.5 -> "1,234.50", 1.005 -> "1.01".
+     */
+    public static String money(double value) {
+        char[] buf = BUFFER.get();
+        int len = writeMoney(buf, value);
+        if (len < 0) return slowMoney(value);
+        return new String(buf, buf.length - len, len);
+    }
+
+    /**
+     * Append money(value) to sb without creating intermediate objects.
+     */
+    public static StringBuilder appendMoney(StringBuilder sb, double value) {
+        char[] buf = BUFFER.get();
+        int len = writeMoney(buf, value);
+        if (len < 0) return sb.append(slowMoney(value));
+        return sb.append(buf, buf.length - len, len);
+    }
+
+    /**
+     * Quantity: whole numbers without decimals ("3"), otherwise up to 3 decimals with trailing
+     * zeros dropped ("2.5", "0.125").
+     */
+    public static String quantity(double value) {
+        if (value == (long) value && Math.abs(value) < FAST_LIMIT) return Long.toString((long) value);
+        if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= FAST_LIMIT) return String.valueOf(value);
+
+        char[] buf = BUFFER.get();
+        long scaled = roundScaled(value, 1000);
+        boolean negative = scaled < 0;
+        long abs = Math.abs(scaled);
+        long whole = abs / 1000;
+        int frac = (int) (abs % 1000);
+
+        int pos = buf.length;
+        int decimals = 3;
+        while (decimals > 0 && frac % 10 == 0) {
+            frac /= 10;
+            decimals--;
+        }
+        for (int i = 0; i < decimals; i++) {
+            buf[--pos] = (char) ('0' + frac % 10);
+            frac /= 10;
+        }
+        if (decimals > 0) buf[--pos] = '.';
+        pos = writeDigits(buf, pos, whole, false);
+        if (negative && (whole != 0 || decimals > 0)) buf[--pos] = '-';
+        return new String(buf, pos, buf.length - pos);
+    }
+
+    /* ================= internals ================= */
+
+    /**
+     * Write money text right-aligned at the end of buf. Returns the length, or -1 for values
+     * outside the fast range (NaN, infinite, huge).
+     */
+    private static int writeMoney(char[] buf, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= FAST_LIMIT) return -1;
+        long cents = roundScaled(value, 100);
+
+        boolean negative = cents < 0;
+        long abs = Math.abs(cents);
+        int pos = buf.length;
+        int frac = (int) (abs % 100);
+        buf[--pos] = (char) ('0' + frac % 10);
+        buf[--pos] = (char) ('0' + frac / 10);
+        buf[--pos] = '.';
+        pos = writeDigits(buf, pos, abs / 100, true);
+        if (negative) buf[--pos] = '-';
+        return buf.length - pos;
+    }
+
+    /**
+     * value * scale rounded half-up, where value is taken as its shortest decimal form ("1.005"),
+     * the same rule as String.format. |value| must be below FAST_LIMIT.
+     */
+    private static long roundScaled(double value, int scale) {
+        double scaled = value * scale;
+        double floor = Math.floor(Math.abs(scaled));
+        double diff = Math.abs(scaled) - floor;
+        if (Math.abs(diff - 0.5) <= Math.max(1e-6, 2 * Math.ulp(scaled))) {
+            // (near-)tie: the multiplication's binary error could go either way, decide in decimal
+            return BigDecimal.valueOf(value).movePointRight(digitsOf(scale))
+                    .setScale(0, RoundingMode.HALF_UP).longValueExact();
+        }
+        long r = (long) (floor + (diff > 0.5 ? 1 : 0));
+        return scaled < 0 ? -r : r;
+    }
+
+    private static int digitsOf(int powerOfTen) {
+        int d = 0;
+        while (powerOfTen > 1) {
+            powerOfTen /= 10;
+            d++;
+        }
+        return d;
+    }
+
+    private static int writeDigits(char[] buf, int pos, long v, boolean grouping) {
+        int count = 0;
+        do {
+            if (grouping && count > 0 && count % 3 == 0) buf[--pos] = ',';
+            buf[--pos] = (char) ('0' + (v % 10));
+            v /= 10;
+            count++;
+        } while (v != 0);
+        return pos;
+    }
+
+    private static String slowMoney(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) return String.valueOf(value);
+        BigDecimal bd = BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+        String plain = bd.abs().toPlainString();
+        int dot = plain.indexOf('.');
+        StringBuilder sb = new StringBuilder(plain.length() + plain.length() / 3 + 1);
+        if (bd.signum() < 0) sb.append('-');
+        for (int i = 0; i < dot; i++) {
+            if (i > 0 && (dot - i) % 3 == 0) sb.append(',');
+            sb.append(plain.charAt(i));
+        }
+        return sb.append(plain, dot, plain.length()).toString();
+    }
+}
@@ -1,265 +1,287 @@
 package util;
 
+import application.AppConfig;
 import model.Bill;
-import model.BillItem;
-import model.Buyer;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdfwriter.compress.CompressParameters;
 
 import java.io.*;
-import java.text.DecimalFormat;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
 import java.util.List;
+import java.util.logging.Logger;
 
 /**
- * PDFGenerator aligned to NativePrinter layout:
- * - same column percentages
- * - same ROW_HEIGHT and baseline offsets (header/rows at top + 15 in Java2D -> top - 15 in PDF)
- * - same vertical/horizontal lines
+ * PDFGenerator: replays a BillLayout onto PDF pages.
+ * Geometry, pagination and cell text come from BillLayout; NativePrinter prints these PDFs.
+ * BillLayout measures y downwards from the top, PDF upwards from the bottom, hence pdfY().
+ *
+ * Large bills (pdf.large.rows rows or more, default 500) are built in large-document mode:
+ * page content goes to a PDFBox scratch file once pdf.large.memory.mb (default 8) of stream
+ * data is held in memory, so heap use stays flat however many pages the bill has.
  */
 public class PDFGenerator {
 
-    private static final PDRectangle PAGE_SIZE = PDRectangle.A4;
-    private static final float MARGIN = 36f;
-    private static final float FOOTER_HEIGHT = 40f;
-    private static final float ROW_HEIGHT = 22f;
-    private static final float DESC_LINE_H = 12f;
+    private static final Logger LOGGER = Logger.getLogger(PDFGenerator.class.getName());
 
-    // Column percentages (copy from NativePrinter)
-    private static final float P_SNO = 0.08f;
-    private static final float P_DESC = 0.45f;
-    private static final float P_QTY = 0.10f;
-    private static final float P_UNIT = 0.18f;
-    // total uses remaining width
+    public static final String KEY_LARGE_ROWS = "pdf.large.rows";
+    public static final String KEY_LARGE_MEMORY_MB = "pdf.large.memory.mb";
 
-    // Fonts (Standard 14)
-    private static final PDType1Font FONT_HEADER = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
-    private static final PDType1Font FONT_REG = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
-    private static final PDType1Font FONT_BOLD = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
+    static final PDRectangle PAGE_SIZE = PDRectangle.A4;
 
-    private static final float HEADER_FONT_SIZE = 18f;
-    private static final float TABLE_HEADER_FONT_SIZE = 10f;
-    private static final float TABLE_FONT_SIZE = 10f;
-    private static final float SMALL_FONT_SIZE = 9f;
+    // bump whenever the PDF output changes, so RenderCache stops serving old renderings
+    public static final int TEMPLATE_VERSION = 1;
 
-    private static final DecimalFormat CURRENCY = new DecimalFormat("#,##0.00");
-
-    private static final String SHOP_DESC = "Deal in All Kind of Electronic\nParts Extension Boards Importer & Stockist";
+    // Fonts (Standard 14) come from PDFRenderContext.fonts(): one set per rendering thread
 
     /* ================= PUBLIC API ================= */
 
     public static void generateBillPDF(Bill bill, File outputFile, String shopName) throws IOException {
-        byte[] logoBytes = null;
-        InputStream is = PDFGenerator.class.getResourceAsStream("/images/logo.png");
-        if (is != null) {
-            try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-                is.transferTo(baos);
-                logoBytes = baos.toByteArray();
-            } catch (Exception e) {
-                System.err.println("Logo not loaded: " + e.getMessage());
-            } finally {
-                try { if (is != null) is.close(); } catch (Exception ignored) {}
-            }
-        }
-        generateBillPDF(bill, outputFile, shopName, logoBytes);
+        generateBillPDF(bill, outputFile, PDFRenderContext.shared(shopName));
     }
 
     public static void generateBillPDF(Bill bill, File outputFile, String shopName, byte[] logoBytes) throws IOException {
-        validateInput(bill, outputFile);
-        List<BillItem> items = bill.getItems();
-
-        try (PDDocument document = new PDDocument()) {
-
-            float pageWidth = PAGE_SIZE.getWidth();
-            float tableWidth = pageWidth - 2 * MARGIN;
-
-            // Column widths (same math as NativePrinter)
-            float wSno = tableWidth * P_SNO;
-            float wDesc = tableWidth * P_DESC;
-            float wQty = tableWidth * P_QTY;
-            float wUnit = tableWidth * P_UNIT;
-            float wTotal = tableWidth - (wSno + wDesc + wQty + wUnit);
-
-            // Column X coordinates
-            float xSno = MARGIN;
-            float xDesc = xSno + wSno;
-            float xQty = xDesc + wDesc;
-            float xUnit = xQty + wQty;
-            float xTotal = xUnit + wUnit;
-            float xEnd = MARGIN + tableWidth;
-
-            PDImageXObject logoImg = null;
-            if (logoBytes != null) {
-                logoImg = PDImageXObject.createFromByteArray(document, logoBytes, "logo");
-            }
+        generateBillPDF(bill, outputFile, new PDFRenderContext(shopName, logoBytes));
+    }
+
+    /**
+     * Render with a prepared context: logo, header and footer are reused, only the bill's
+     * own content is laid out here.
+     */
+    public static void generateBillPDF(Bill bill, File outputFile, PDFRenderContext ctx) throws IOException {
+        if (outputFile == null) throw new IllegalArgumentException("Output file cannot be null");
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+            generateBillPDF(bill, out, ctx);
+        }
+    }
+
+    /**
+     * Same as above, writing the PDF to a stream. PDFBox closes the stream when done, so
+     * render into a ByteArrayOutputStream when the target must stay open (ZIP entries).
+     */
+    public static void generateBillPDF(Bill bill, OutputStream out, PDFRenderContext ctx) throws IOException {
+        validateInput(bill, out);
+        generateBillPDF(BillLayout.of(bill, ctx.getShopName()), out, ctx);
+    }
+
+    /**
+     * The whole PDF as bytes (for caching, ZIP entries and printing).
+     */
+    public static byte[] toBytes(Bill bill, PDFRenderContext ctx) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        generateBillPDF(bill, out, ctx);
+        return out.toByteArray();
+    }
+
+    /**
+     * RenderCache variant of a PDF rendered with ctx.
+     */
+    public static String cacheVariant(PDFRenderContext ctx) {
+        return "pdf-v" + TEMPLATE_VERSION + "|" + ctx.cacheKey();
+    }
 
-            int rowIndex = 0;
-            int pageIndex = 0;
+    /**
+     * Write an already computed layout (the layout's shop name should match ctx).
+     */
+    public static void generateBillPDF(BillLayout layout, OutputStream out, PDFRenderContext ctx) throws IOException {
+        PDFRenderContext.Fonts fonts = ctx.fonts();
+        PDType1Font fontReg = fonts.regular;
+        PDType1Font fontBold = fonts.bold;
+        List<BillLayout.Column> cols = BillLayout.COLUMNS;
 
-            while (rowIndex < items.size()) {
+        boolean large = layout.getRowCount() >= AppConfig.getInt(KEY_LARGE_ROWS, 500);
+        LargeBillStats stats = large ? new LargeBillStats() : null;
+
+        try (PDDocument document = newDocument(large)) {
+            // one copy of each form per document, referenced from every page
+            PDFormXObject headerForm = ctx.headerForm(document);
+            PDFormXObject footerForm = ctx.footerForm(document);
+
+            for (BillLayout.Page p : layout.getPages()) {
                 PDPage page = new PDPage(PAGE_SIZE);
                 document.addPage(page);
 
                 try (PDPageContentStream cs = new PDPageContentStream(document, page)) {
-                    float yStart = PAGE_SIZE.getHeight() - MARGIN;
-                    float y = yStart;
-
-                    // ===== HEADER (first page) =====
-                    if (pageIndex == 0) {
-                        if (logoImg != null) {
-                            cs.drawImage(logoImg, pageWidth - MARGIN - 80f, y - 50f, 80f, 50f);
-                        }
-                        drawText(cs, shopName != null ? shopName : "Fakhar Enterprises", MARGIN, y - 20f, FONT_HEADER, HEADER_FONT_SIZE);
 
-                        float descY = y - 38f;
-                        for (String line : SHOP_DESC.split("\n")) {
-                            drawText(cs, line, MARGIN, descY, FONT_REG, SMALL_FONT_SIZE);
-                            descY -= DESC_LINE_H;
-                        }
-
-                        // divider
-                        cs.setStrokingColor(0f, 0f, 0f);
-                        cs.setLineWidth(1.2f);
-                        cs.moveTo(MARGIN, descY - 15f);
-                        cs.lineTo(pageWidth - MARGIN, descY - 15f);
-                        cs.stroke();
-                        cs.setLineWidth(1f);
-
-                        y = descY - 25f;
-
-                        // right-aligned bill details (match NativePrinter placement)
-                        drawTextRight(cs, "Bill #: " + bill.getId(), pageWidth - MARGIN, y + 30f, FONT_REG, TABLE_FONT_SIZE);
-                        drawTextRight(cs, "Date: " + (bill.getBillDate() != null ? bill.getBillDate() : "N/A"), pageWidth - MARGIN, y + 16f, FONT_REG, TABLE_FONT_SIZE);
-
-                        // buyer info (match NativePrinter)
-                        Buyer b = bill.getBuyer();
-                        if (b != null) {
-                            drawText(cs, "Buyer:", MARGIN, y, FONT_BOLD, TABLE_FONT_SIZE);
-                            drawText(cs, b.getName() != null ? b.getName() : "Walk-in Customer", MARGIN + 50f, y, FONT_REG, TABLE_FONT_SIZE);
-                            if (b.getPhone() != null && !b.getPhone().isEmpty()) {
-                                drawText(cs, "Phone:", MARGIN + 360f, y, FONT_BOLD, TABLE_FONT_SIZE);
-                                drawText(cs, b.getPhone(), MARGIN + 405f, y, FONT_REG, TABLE_FONT_SIZE);
+                    // ===== HEADER + bill details (first page) =====
+                    if (p.isFirst()) {
+                        cs.drawForm(headerForm);
+                        drawTextRight(cs, layout.getBillNoText(), BillLayout.DETAILS_RIGHT, pdfY(BillLayout.BILL_NO_BASELINE), fontReg, BillLayout.TEXT_SIZE);
+                        drawTextRight(cs, layout.getDateText(), BillLayout.DETAILS_RIGHT, pdfY(BillLayout.DATE_BASELINE), fontReg, BillLayout.TEXT_SIZE);
+
+                        if (layout.hasBuyer()) {
+                            float y = pdfY(BillLayout.HEADER_BOTTOM);
+                            drawText(cs, "Buyer:", BillLayout.BUYER_LABEL_X, y, fontBold, BillLayout.TEXT_SIZE);
+                            drawText(cs, layout.getBuyerName(), BillLayout.BUYER_NAME_X, y, fontReg, BillLayout.TEXT_SIZE);
+                            if (layout.getBuyerPhone() != null) {
+                                drawText(cs, "Phone:", BillLayout.PHONE_LABEL_X, y, fontBold, BillLayout.TEXT_SIZE);
+                                drawText(cs, layout.getBuyerPhone(), BillLayout.PHONE_X, y, fontReg, BillLayout.TEXT_SIZE);
                             }
-                            y -= 25f;
-                        } else {
-                            y -= 10f;
                         }
-                    } else {
-                        // small gap for subsequent pages
-                        y -= 20f;
                     }
 
-                    // ===== TABLE HEADER & PAGINATION =====
-                    float availableHeight = y - MARGIN - FOOTER_HEIGHT;
-                    int rowsPerPage = Math.max(1, (int) (availableHeight / ROW_HEIGHT));
-                    int endRow = Math.min(rowIndex + rowsPerPage, items.size());
-
-                    float tableTopY = y;
-
-                    // header background rectangle (same as fillRect in Java2D)
-                    cs.setNonStrokingColor(0.9f, 0.9f, 0.9f);
-                    cs.addRect(MARGIN, tableTopY - ROW_HEIGHT, tableWidth, ROW_HEIGHT);
+                    // ===== TABLE HEADER =====
+                    float tableTop = pdfY(p.tableTop());
+                    float tableBottom = pdfY(p.tableBottom());
+                    float grey = BillLayout.TABLE_HEADER_FILL;
+                    cs.setNonStrokingColor(grey, grey, grey);
+                    cs.addRect(BillLayout.MARGIN, tableTop - BillLayout.ROW_HEIGHT, BillLayout.TABLE_WIDTH, BillLayout.ROW_HEIGHT);
                     cs.fill();
                     cs.setNonStrokingColor(0f, 0f, 0f);
 
-                    // ===== IMPORTANT: use the same baseline offset as NativePrinter =====
-                    // NativePrinter used `y + 15` in Java2D for header/rows; in PDF coordinates that's `topY - 15`.
-                    float headerBaseline = tableTopY - 15f;
-                    drawTextCentered(cs, "S.No", xSno, wSno, headerBaseline, FONT_BOLD, TABLE_HEADER_FONT_SIZE);
-                    drawText(cs, "Product Description", xDesc + 5f, headerBaseline, FONT_BOLD, TABLE_HEADER_FONT_SIZE);
-                    drawTextCentered(cs, "Qty", xQty, wQty, headerBaseline, FONT_BOLD, TABLE_HEADER_FONT_SIZE);
-                    drawTextRight(cs, "Unit Price", xUnit + wUnit - 5f, headerBaseline, FONT_BOLD, TABLE_HEADER_FONT_SIZE);
-                    drawTextRight(cs, "Total", xEnd - 5f, headerBaseline, FONT_BOLD, TABLE_HEADER_FONT_SIZE);
-
-                    // ===== ROWS using same top+15 baseline approach =====
-                    float currentRowTop = tableTopY - ROW_HEIGHT; // top Y of first data row
-                    int drawnRows = 0;
-
-                    cs.setFont(FONT_REG, TABLE_FONT_SIZE);
-
-                    for (int i = rowIndex; i < endRow; i++) {
-                        BillItem it = items.get(i);
-
-                        // baseline matches Java2D's `rowTop + 15` -> PDF: rowTop - 15
-                        float baseline = currentRowTop - 15f;
-
-                        // S.No (center)
-                        drawTextCentered(cs, String.valueOf(i + 1), xSno, wSno, baseline, FONT_REG, TABLE_FONT_SIZE);
-                        // Product (left)
-                        drawText(cs, trunc(it.getProductName(), 35), xDesc + 5f, baseline, FONT_REG, TABLE_FONT_SIZE);
-                        // Qty (center)
-                        drawTextCentered(cs, fmt(it.getQuantity()), xQty, wQty, baseline, FONT_REG, TABLE_FONT_SIZE);
-                        // Unit price (right)
-                        drawTextRight(cs, CURRENCY.format(it.getUnitPrice()), xUnit + wUnit - 5f, baseline, FONT_REG, TABLE_FONT_SIZE);
-                        // Item total (right)
-                        drawTextRight(cs, CURRENCY.format(it.getItemTotal()), xEnd - 5f, baseline, FONT_REG, TABLE_FONT_SIZE);
-
-                        // light horizontal separator line at bottom of this row (mimics Java2D drawLine at y+ROW_H)
-                        cs.setStrokingColor(0.85f, 0.85f, 0.85f);
-                        cs.moveTo(MARGIN, currentRowTop - ROW_HEIGHT);
-                        cs.lineTo(MARGIN + tableWidth, currentRowTop - ROW_HEIGHT);
-                        cs.stroke();
-                        cs.setStrokingColor(0f, 0f, 0f);
+                    float headerBaseline = pdfY(p.tableTop() + BillLayout.ROW_BASELINE);
+                    for (BillLayout.Column c : cols) {
+                        drawCell(cs, c, c.title(), headerBaseline, fontBold, BillLayout.TEXT_SIZE);
+                    }
 
-                        // advance to next row top (downwards)
-                        currentRowTop -= ROW_HEIGHT;
-                        drawnRows++;
+                    // ===== ROWS =====
+                    for (BillLayout.Row row : p.rows()) {
+                        float baseline = pdfY(row.baseline());
+                        for (int i = 0; i < cols.size(); i++) {
+                            drawCell(cs, cols.get(i), row.cells().get(i), baseline, fontReg, BillLayout.TEXT_SIZE);
+                        }
                     }
 
-                    // bottom Y of table (below last drawn row) — matches Java2D y after rows
-                    float tableBottomY = tableTopY - ROW_HEIGHT - (drawnRows * ROW_HEIGHT);
+                    // light separator under every row, one stroke for the page
+                    if (!p.rows().isEmpty()) {
+                        grey = BillLayout.ROW_LINE_GREY;
+                        cs.setStrokingColor(grey, grey, grey);
+                        for (BillLayout.Row row : p.rows()) {
+                            float lineY = pdfY(row.top() + BillLayout.ROW_HEIGHT);
+                            cs.moveTo(BillLayout.MARGIN, lineY);
+                            cs.lineTo(BillLayout.TABLE_RIGHT, lineY);
+                        }
+                        cs.stroke();
+                    }
 
-                    // ===== VERTICAL LINES from header top to bottom of last drawn row =====
-                    float[] xCols = {xSno, xDesc, xQty, xUnit, xTotal, xEnd};
-                    cs.setStrokingColor(0.7f, 0.7f, 0.7f);
-                    for (float x : xCols) {
-                        cs.moveTo(x, tableTopY);
-                        cs.lineTo(x, tableBottomY);
+                    // ===== VERTICAL LINES from header top to bottom of last row =====
+                    grey = BillLayout.COLUMN_LINE_GREY;
+                    cs.setStrokingColor(grey, grey, grey);
+                    for (BillLayout.Column c : cols) {
+                        cs.moveTo(c.x(), tableTop);
+                        cs.lineTo(c.x(), tableBottom);
                     }
+                    cs.moveTo(BillLayout.TABLE_RIGHT, tableTop);
+                    cs.lineTo(BillLayout.TABLE_RIGHT, tableBottom);
                     cs.stroke();
                     cs.setStrokingColor(0f, 0f, 0f);
 
-                    // ===== GRAND TOTAL on last page (same placement logic as NativePrinter) =====
-                    if (endRow == items.size()) {
-                        float yAfter = tableBottomY - 30f;
-                        drawText(cs, "Grand Total:", xUnit + 10f, yAfter + 12f, FONT_BOLD, 10f);
-                        drawTextRight(cs, "PKR " + CURRENCY.format(bill.getGrandTotal()), xEnd - 5f, yAfter + 12f, FONT_BOLD, 12f);
-
-                        // optional double-line under total (visual parity)
-                        cs.moveTo(xUnit, yAfter + 8f);
-                        cs.lineTo(xEnd, yAfter + 8f);
-                        cs.moveTo(xUnit, yAfter + 6f);
-                        cs.lineTo(xEnd, yAfter + 6f);
+                    // ===== GRAND TOTAL (last page) =====
+                    if (p.hasGrandTotal()) {
+                        float y = pdfY(p.grandTotalBaseline());
+                        drawText(cs, "Grand Total:", BillLayout.GRAND_TOTAL_LABEL_X, y, fontBold, BillLayout.TEXT_SIZE);
+                        drawTextRight(cs, layout.getGrandTotalText(), BillLayout.TABLE_RIGHT - 5f, y, fontBold, BillLayout.GRAND_TOTAL_SIZE);
+
+                        // double line under the total
+                        cs.moveTo(BillLayout.GRAND_TOTAL_LINE_X, y - 4f);
+                        cs.lineTo(BillLayout.TABLE_RIGHT, y - 4f);
+                        cs.moveTo(BillLayout.GRAND_TOTAL_LINE_X, y - 6f);
+                        cs.lineTo(BillLayout.TABLE_RIGHT, y - 6f);
                         cs.stroke();
                     }
 
                     // Footer (centered)
-                    drawTextCentered(cs,
-                            "Thank you for shopping at " + (shopName != null ? shopName : "Fakhar Enterprises") + "!",
-                            MARGIN, tableWidth, MARGIN + FOOTER_HEIGHT / 4f, FONT_REG, SMALL_FONT_SIZE);
-
-                    // advance
-                    rowIndex = endRow;
-                    pageIndex++;
+                    cs.drawForm(footerForm);
                 }
+                // closing the stream above moved the page's content into the document's cache
+                if (stats != null) stats.sample();
             }
 
-            document.save(outputFile);
+            document.save(out, CompressParameters.DEFAULT_COMPRESSION);
         }
+        if (stats != null) stats.report(layout);
+    }
+
+    /**
+     * In-memory document for normal bills; for large ones a mixed memory/scratch-file cache
+     * capped at pdf.large.memory.mb.
+     */
+    private static PDDocument newDocument(boolean large) {
+        if (!large) return new PDDocument();
+        long cap = Math.max(1, AppConfig.getLong(KEY_LARGE_MEMORY_MB, 8)) * 1024 * 1024;
+        return new PDDocument(MemoryUsageSetting.setupMixed(cap).streamCache);
+    }
+
+    /** Time and peak heap of one large-bill rendering, logged per 1,000 rows. */
+    private static final class LargeBillStats {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final long start = System.nanoTime();
+        private final long baseHeap = memory.getHeapMemoryUsage().getUsed();
+        private long peakHeap = baseHeap;
+
+        void sample() {
+            peakHeap = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+        }
+
+        void report(BillLayout layout) {
+            sample();
+            long ms = (System.nanoTime() - start) / 1_000_000;
+            double perK = 1000.0 / Math.max(1, layout.getRowCount());
+            double peakMb = Math.max(0, peakHeap - baseHeap) / (1024.0 * 1024.0);
+            LOGGER.info(String.format("%s (large mode): %d rows, %d pages in %d ms (%.0f ms / 1000 rows), peak heap +%.1f MB (%.1f MB / 1000 rows)",
+                    layout.getBillNoText(), layout.getRowCount(), layout.getPageCount(), ms, ms * perK, peakMb, peakMb * perK));
+        }
+    }
+
+    /* ================= Header / footer (recorded once by PDFRenderContext) ================= */
+
+    /**
+     * Logo, shop name, description and divider of the first page.
+     */
+    static void drawHeader(PDPageContentStream cs, PDFRenderContext.Fonts fonts, String shopName, PDImageXObject logoImg) throws IOException {
+        if (logoImg != null) {
+            cs.drawImage(logoImg, BillLayout.LOGO_X, pdfY(BillLayout.LOGO_Y + BillLayout.LOGO_HEIGHT),
+                    BillLayout.LOGO_WIDTH, BillLayout.LOGO_HEIGHT);
+        }
+        drawText(cs, shopName, BillLayout.MARGIN, pdfY(BillLayout.SHOP_NAME_BASELINE), fonts.bold, BillLayout.SHOP_NAME_SIZE);
+
+        float descY = BillLayout.DESC_FIRST_BASELINE;
+        for (String line : BillLayout.SHOP_DESC) {
+            drawText(cs, line, BillLayout.MARGIN, pdfY(descY), fonts.regular, BillLayout.SMALL_SIZE);
+            descY += BillLayout.DESC_LINE_HEIGHT;
+        }
+
+        // divider
+        cs.setStrokingColor(0f, 0f, 0f);
+        cs.setLineWidth(BillLayout.DIVIDER_WIDTH);
+        cs.moveTo(BillLayout.MARGIN, pdfY(BillLayout.DIVIDER_Y));
+        cs.lineTo(BillLayout.TABLE_RIGHT, pdfY(BillLayout.DIVIDER_Y));
+        cs.stroke();
+        cs.setLineWidth(1f);
+    }
+
+    static void drawFooter(PDPageContentStream cs, PDFRenderContext.Fonts fonts, String shopName) throws IOException {
+        drawTextCentered(cs, BillLayout.footerText(shopName), BillLayout.MARGIN, BillLayout.TABLE_WIDTH,
+                pdfY(BillLayout.FOOTER_BASELINE), fonts.regular, BillLayout.SMALL_SIZE);
+    }
+
+    private static float pdfY(float layoutY) {
+        return PAGE_SIZE.getHeight() - layoutY;
     }
 
     /* ================= Helpers ================= */
 
-    private static void validateInput(Bill bill, File outputFile) {
+    private static void validateInput(Bill bill, OutputStream out) {
         if (bill == null) throw new IllegalArgumentException("Bill cannot be null");
-        if (outputFile == null) throw new IllegalArgumentException("Output file cannot be null");
+        if (out == null) throw new IllegalArgumentException("Output cannot be null");
         if (bill.getItems() == null) throw new IllegalArgumentException("Bill items cannot be null");
     }
 
+    private static void drawCell(PDPageContentStream cs, BillLayout.Column c, String text, float y, PDType1Font font, float fontSize) throws IOException {
+        switch (c.align()) {
+            case LEFT -> drawText(cs, text, c.textX(), y, font, fontSize);
+            case RIGHT -> drawTextRight(cs, text, c.textX(), y, font, fontSize);
+            case CENTER -> drawTextCentered(cs, text, c.textX(), c.width(), y, font, fontSize);
+        }
+    }
+
     private static void drawText(PDPageContentStream cs, String text, float x, float y, PDType1Font font, float fontSize) throws IOException {
         if (text == null || text.isEmpty()) return;
         cs.beginText();
@@ -281,13 +303,4 @@ public class PDFGenerator {
         float cx = x + (width - textWidth) / 2f;
         drawText(cs, text, cx, y, font, fontSize);
     }
-
-    private static String fmt(double d) {
-        return (d == (int) d) ? String.valueOf((int) d) : String.valueOf(d);
-    }
-
-    private static String trunc(String s, int n) {
-        if (s == null) return "";
-        return s.length() <= n ? s : s.substring(0, n - 3) + "...";
-    }
 }
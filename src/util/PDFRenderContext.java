@@ -0,0 +1,264 @@
+package util;
+
+import org.apache.pdfbox.cos.*;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAppearanceStream;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * PDFRenderContext - everything in a bill PDF that does not depend on the bill, prepared once.
+ *
+ * - logo: PNG decoded and re-compressed once; each document only gets a copy of the encoded stream
+ * - header (logo, shop name, description, divider) and footer: pre-built Form XObject content,
+ *   drawn with a single "Do" operator per page
+ * - fonts: Standard 14 fonts, one set per thread (PDFont keeps internal caches and is not thread-safe)
+ *
+ * PDFBox objects belong to one PDDocument, so the context keeps raw bytes and dictionary entries
+ * and materializes them into each new document. The context itself is immutable and thread-safe.
+ */
+public final class PDFRenderContext {
+
+    private static final Logger LOGGER = Logger.getLogger(PDFRenderContext.class.getName());
+
+    private static final String DEFAULT_SHOP = "Fakhar Enterprises";
+
+    private static final ConcurrentHashMap<String, PDFRenderContext> SHARED = new ConcurrentHashMap<>();
+    private static volatile byte[] defaultLogo;
+
+    /** Per-thread Standard 14 fonts. */
+    public static final class Fonts {
+        public final PDType1Font regular = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+        public final PDType1Font bold = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
+
+        PDType1Font byBaseName(String baseName) {
+            return bold.getName().equals(baseName) ? bold : regular;
+        }
+    }
+
+    private static final ThreadLocal<Fonts> FONTS = ThreadLocal.withInitial(Fonts::new);
+
+    /** Encoded stream cut loose from its document: direct dictionary entries + raw (still filtered) bytes. */
+    private static final class StreamTemplate {
+        final Map<COSName, COSBase> entries = new LinkedHashMap<>();
+        byte[] raw;
+        StreamTemplate smask;
+    }
+
+    /** Pre-built form: content bytes plus which resource name stands for what. */
+    private static final class FormTemplate {
+        StreamTemplate content;
+        final Map<COSName, String> fontNames = new LinkedHashMap<>();   // resource name -> font base name
+        final List<COSName> logoNames = new ArrayList<>();
+    }
+
+    private final String shopName;
+    private final int logoHash;             // identifies the logo in RenderCache keys
+    private final StreamTemplate logo;      // null = no logo
+    private final FormTemplate header;
+    private final FormTemplate footer;
+
+    /**
+     * Context for shopName with the bundled logo, shared by all callers.
+     */
+    public static PDFRenderContext shared(String shopName) {
+        String key = shopName != null ? shopName : DEFAULT_SHOP;
+        return SHARED.computeIfAbsent(key, k -> {
+            try {
+                return new PDFRenderContext(k, bundledLogo());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public PDFRenderContext(String shopName, byte[] logoBytes) throws IOException {
+        this.shopName = shopName != null ? shopName : DEFAULT_SHOP;
+        this.logoHash = logoBytes != null ? Arrays.hashCode(logoBytes) : 0;
+        try (PDDocument scratch = new PDDocument()) {
+            StreamTemplate logoTemplate = null;
+            if (logoBytes != null) {
+                try {
+                    PDImageXObject img = PDImageXObject.createFromByteArray(scratch, logoBytes, "logo");
+                    logoTemplate = capture(img.getCOSObject());
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Logo not loaded", e);
+                }
+            }
+            this.logo = logoTemplate;
+
+            Fonts fonts = fonts();
+            PDImageXObject scratchLogo = logo != null ? materializeImage(scratch, logo) : null;
+            this.header = record(scratch, cs -> PDFGenerator.drawHeader(cs, fonts, this.shopName, scratchLogo));
+            this.footer = record(scratch, cs -> PDFGenerator.drawFooter(cs, fonts, this.shopName));
+        }
+    }
+
+    public String getShopName() {
+        return shopName;
+    }
+
+    /**
+     * Everything about this context that shows up in the output (for RenderCache keys).
+     */
+    public String cacheKey() {
+        return shopName + "|logo:" + Integer.toHexString(logoHash);
+    }
+
+    /**
+     * Fonts for the calling thread (same instances for every document rendered on it).
+     */
+    public Fonts fonts() {
+        return FONTS.get();
+    }
+
+    /**
+     * Header form (logo, shop name, description, divider) for doc; draw at page origin.
+     */
+    public PDFormXObject headerForm(PDDocument doc) throws IOException {
+        return materializeForm(doc, header);
+    }
+
+    /**
+     * Footer form ("Thank you for shopping...") for doc; draw at page origin.
+     */
+    public PDFormXObject footerForm(PDDocument doc) throws IOException {
+        return materializeForm(doc, footer);
+    }
+
+    /* ================= building ================= */
+
+    private interface Painter {
+        void paint(PDPageContentStream cs) throws IOException;
+    }
+
+    private static FormTemplate record(PDDocument scratch, Painter painter) throws IOException {
+        // PDAppearanceStream is a form XObject that PDPageContentStream can write into
+        PDAppearanceStream form = new PDAppearanceStream(scratch);
+        form.setBBox(PDFGenerator.PAGE_SIZE);
+        form.setResources(new PDResources());
+        try (PDPageContentStream cs = new PDPageContentStream(scratch, form)) {
+            painter.paint(cs);
+        }
+
+        FormTemplate t = new FormTemplate();
+        PDResources res = form.getResources();
+        for (COSName name : res.getFontNames()) {
+            t.fontNames.put(name, res.getFont(name).getName());
+        }
+        for (COSName name : res.getXObjectNames()) {
+            t.logoNames.add(name);
+        }
+        COSStream stream = form.getCOSObject();
+        stream.removeItem(COSName.RESOURCES);
+        t.content = capture(stream);
+        return t;
+    }
+
+    private static StreamTemplate capture(COSStream stream) throws IOException {
+        StreamTemplate t = new StreamTemplate();
+        for (Map.Entry<COSName, COSBase> e : stream.entrySet()) {
+            COSName key = e.getKey();
+            if (COSName.LENGTH.equals(key)) continue;
+            if (COSName.SMASK.equals(key)) {
+                COSBase v = e.getValue() instanceof COSObject ? ((COSObject) e.getValue()).getObject() : e.getValue();
+                if (v instanceof COSStream) t.smask = capture((COSStream) v);
+                continue;
+            }
+            COSBase copy = copyDirect(e.getValue());
+            if (copy == null) throw new IOException("Cannot cache stream entry " + key.getName());
+            t.entries.put(key, copy);
+        }
+        try (InputStream in = stream.createRawInputStream()) {
+            t.raw = in.readAllBytes();
+        }
+        return t;
+    }
+
+    /**
+     * Fresh copy of a direct value (names, numbers, strings, arrays/dicts of those); null if it
+     * references another object, which would tie the copy to a document.
+     */
+    private static COSBase copyDirect(COSBase v) {
+        if (v instanceof COSName || v instanceof COSNumber || v instanceof COSBoolean || v instanceof COSNull) return v;
+        if (v instanceof COSString) return new COSString(((COSString) v).getBytes());
+        if (v instanceof COSArray) {
+            COSArray out = new COSArray();
+            for (COSBase item : (COSArray) v) {
+                COSBase c = copyDirect(item);
+                if (c == null) return null;
+                out.add(c);
+            }
+            return out;
+        }
+        if (v instanceof COSDictionary && !(v instanceof COSStream)) {
+            COSDictionary out = new COSDictionary();
+            for (Map.Entry<COSName, COSBase> e : ((COSDictionary) v).entrySet()) {
+                COSBase c = copyDirect(e.getValue());
+                if (c == null) return null;
+                out.setItem(e.getKey(), c);
+            }
+            return out;
+        }
+        return null;
+    }
+
+    /* ================= per-document ================= */
+
+    private static COSStream materialize(PDDocument doc, StreamTemplate t) throws IOException {
+        COSStream s = doc.getDocument().createCOSStream();
+        for (Map.Entry<COSName, COSBase> e : t.entries.entrySet()) {
+            // copy again: COS objects are mutable and documents may be written concurrently
+            s.setItem(e.getKey(), copyDirect(e.getValue()));
+        }
+        try (OutputStream out = s.createRawOutputStream()) {
+            out.write(t.raw);
+        }
+        if (t.smask != null) s.setItem(COSName.SMASK, materialize(doc, t.smask));
+        return s;
+    }
+
+    private static PDImageXObject materializeImage(PDDocument doc, StreamTemplate t) throws IOException {
+        return new PDImageXObject(new PDStream(materialize(doc, t)), null);
+    }
+
+    private PDFormXObject materializeForm(PDDocument doc, FormTemplate t) throws IOException {
+        PDFormXObject form = new PDFormXObject(materialize(doc, t.content));
+        PDResources res = new PDResources();
+        Fonts fonts = fonts();
+        for (Map.Entry<COSName, String> e : t.fontNames.entrySet()) {
+            res.put(e.getKey(), fonts.byBaseName(e.getValue()));
+        }
+        if (!t.logoNames.isEmpty() && logo != null) {
+            PDImageXObject img = materializeImage(doc, logo);
+            for (COSName name : t.logoNames) res.put(name, img);
+        }
+        form.setResources(res);
+        return form;
+    }
+
+    private static byte[] bundledLogo() {
+        byte[] b = defaultLogo;
+        if (b != null) return b;
+        try (InputStream is = PDFRenderContext.class.getResourceAsStream("/images/logo.png")) {
+            if (is == null) return null;
+            b = is.readAllBytes();
+            defaultLogo = b;
+            return b;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Logo not loaded", e);
+            return null;
+        }
+    }
+}
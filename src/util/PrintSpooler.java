@@ -0,0 +1,316 @@
+package util;
+
+import application.AppConfig;
+
+import javax.print.PrintService;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * PrintSpooler - background print queue, one worker thread per printer.
+ *
+ * Controllers submit a job and return immediately; each printer prints its jobs one at a time in
+ * submission order, so the counter keeps billing while bills come out behind it. A job that throws
+ * is retried with exponential backoff before it is marked FAILED. Queues are bounded: submit()
+ * refuses new work when a printer is that far behind (usually offline or out of paper).
+ *
+ * Settings (AppConfig):
+ *  - print.queue.capacity: waiting jobs per printer, default 20
+ *  - print.retries: extra attempts after a failure, default 3
+ *  - print.retry.backoff.ms: delay before the first retry (doubles each time), default 1000
+ */
+public final class PrintSpooler {
+
+    private static final Logger LOGGER = Logger.getLogger(PrintSpooler.class.getName());
+
+    public static final String KEY_QUEUE_CAPACITY = "print.queue.capacity";
+    public static final String KEY_RETRIES = "print.retries";
+    public static final String KEY_BACKOFF_MS = "print.retry.backoff.ms";
+
+    private static final int HISTORY_SIZE = 100;
+
+    public enum State { QUEUED, PRINTING, FAILED, DONE }
+
+    /** The actual printing, run on the printer's worker thread. */
+    @FunctionalInterface
+    public interface PrintAction {
+        void print(PrintService service) throws Exception;
+    }
+
+    /** A submitted job. Fields are written by the worker and safe to read from any thread. */
+    public static final class Job {
+        private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+        private final long id = NEXT_ID.getAndIncrement();
+        private final String description;
+        private final PrintService service;
+        private final PrintAction action;
+        private final long submittedAt = System.currentTimeMillis();
+        private final CompletableFuture<Job> completion = new CompletableFuture<>();
+
+        private volatile State state = State.QUEUED;
+        private volatile int attempts;
+        private volatile long startedAt;
+        private volatile long finishedAt;
+        private volatile String error;
+
+        private Job(String description, PrintService service, PrintAction action) {
+            this.description = description;
+            this.service = service;
+            this.action = action;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public String getPrinterName() {
+            return service.getName();
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        /** Last error message (also set while a retry is pending), null if none. */
+        public String getError() {
+            return error;
+        }
+
+        public long getSubmittedAt() {
+            return submittedAt;
+        }
+
+        /** Time spent waiting in the queue (so far, if not started yet). */
+        public long getWaitMs() {
+            long start = startedAt;
+            return (start > 0 ? start : System.currentTimeMillis()) - submittedAt;
+        }
+
+        /** Time from first attempt to DONE/FAILED (so far, if still printing); 0 while queued. */
+        public long getPrintMs() {
+            long start = startedAt;
+            if (start == 0) return 0;
+            long end = finishedAt;
+            return (end > 0 ? end : System.currentTimeMillis()) - start;
+        }
+
+        public boolean isFinished() {
+            return state == State.DONE || state == State.FAILED;
+        }
+
+        /** Completes with this job once it is DONE or FAILED (never exceptionally). */
+        public CompletableFuture<Job> completion() {
+            return completion;
+        }
+    }
+
+    private static final ConcurrentHashMap<String, Worker> WORKERS = new ConcurrentHashMap<>();
+    private static final Deque<Job> HISTORY = new ArrayDeque<>();
+    private static final List<Consumer<Job>> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private static final AtomicLong DONE = new AtomicLong();
+    private static final AtomicLong FAILED = new AtomicLong();
+    private static final AtomicLong TOTAL_WAIT_MS = new AtomicLong();
+    private static final AtomicLong TOTAL_PRINT_MS = new AtomicLong();
+
+    private PrintSpooler() {}
+
+    /* ================= PUBLIC API ================= */
+
+    /**
+     * Queue a job for service. Returns at once; the job runs on the printer's worker thread.
+     *
+     * @throws RejectedExecutionException if the printer's queue is full
+     */
+    public static Job submit(String description, PrintService service, PrintAction action) {
+        if (service == null) throw new IllegalArgumentException("Print service cannot be null");
+        if (action == null) throw new IllegalArgumentException("Print action cannot be null");
+
+        Job job = new Job(description, service, action);
+        Worker worker = WORKERS.computeIfAbsent(service.getName(), Worker::new);
+        if (!worker.queue.offer(job)) {
+            throw new RejectedExecutionException("Print queue for " + service.getName() + " is full ("
+                    + worker.queue.size() + " jobs waiting). Check that the printer is online.");
+        }
+        synchronized (HISTORY) {
+            HISTORY.addLast(job);
+            // drop the oldest finished jobs; unfinished ones always stay visible
+            while (HISTORY.size() > HISTORY_SIZE && HISTORY.peekFirst().isFinished()) {
+                HISTORY.removeFirst();
+            }
+        }
+        LOGGER.fine("Job #" + job.id + " queued for " + service.getName() + ": " + description);
+        fire(job);
+        return job;
+    }
+
+    /**
+     * Recent jobs, oldest first (unfinished jobs plus up to the last 100 finished ones).
+     */
+    public static List<Job> jobs() {
+        synchronized (HISTORY) {
+            return new ArrayList<>(HISTORY);
+        }
+    }
+
+    /** Jobs queued or printing, over all printers. */
+    public static int pendingCount() {
+        int n = 0;
+        for (Job j : jobs()) {
+            if (!j.isFinished()) n++;
+        }
+        return n;
+    }
+
+    /** Forget finished jobs (status view "Clear"). Counters are kept. */
+    public static void clearFinished() {
+        synchronized (HISTORY) {
+            HISTORY.removeIf(Job::isFinished);
+        }
+        fire(null);
+    }
+
+    /**
+     * Called on the worker thread after every state change (null after clearFinished).
+     * UI listeners must hop to the FX thread themselves.
+     */
+    public static void addListener(Consumer<Job> listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static void removeListener(Consumer<Job> listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /** One-line summary for the status view, e.g. "2 pending, 41 done, 1 failed - avg wait 12 ms, avg print 640 ms". */
+    public static String statsText() {
+        long done = DONE.get();
+        long failed = FAILED.get();
+        long finished = done + failed;
+        StringBuilder sb = new StringBuilder();
+        sb.append(pendingCount()).append(" pending, ").append(done).append(" done, ").append(failed).append(" failed");
+        if (finished > 0) {
+            sb.append(" - avg wait ").append(TOTAL_WAIT_MS.get() / finished).append(" ms")
+                    .append(", avg print ").append(TOTAL_PRINT_MS.get() / finished).append(" ms");
+        }
+        return sb.toString();
+    }
+
+    /* ================= worker ================= */
+
+    private static final class Worker implements Runnable {
+        final String printerName;
+        final BlockingQueue<Job> queue;
+
+        Worker(String printerName) {
+            this.printerName = printerName;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, AppConfig.getInt(KEY_QUEUE_CAPACITY, 20)));
+            Thread t = new Thread(this, "print-" + printerName);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Job job;
+                try {
+                    job = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    process(job);
+                } catch (Throwable t) {
+                    // never let one job end the worker: later jobs for this printer would wait forever
+                    LOGGER.log(Level.SEVERE, "Print worker for " + printerName + " hit an error on job #" + job.id, t);
+                    if (!job.completion.isDone()) {
+                        job.error = t.toString();
+                        finish(job, State.FAILED);
+                    }
+                }
+            }
+        }
+
+        private void process(Job job) {
+            int retries = Math.max(0, AppConfig.getInt(KEY_RETRIES, 3));
+            long backoff = Math.max(0, AppConfig.getLong(KEY_BACKOFF_MS, 1000));
+
+            job.startedAt = System.currentTimeMillis();
+            for (int attempt = 1; ; attempt++) {
+                job.attempts = attempt;
+                job.state = State.PRINTING;
+                fire(job);
+                try {
+                    job.action.print(job.service);
+                    job.error = null;
+                    finish(job, State.DONE);
+                    return;
+                } catch (Exception e) {
+                    job.error = e.getMessage() != null ? e.getMessage() : e.toString();
+                    if (attempt > retries) {
+                        LOGGER.log(Level.WARNING, "Job #" + job.id + " on " + printerName + " failed after "
+                                + attempt + " attempt(s)", e);
+                        finish(job, State.FAILED);
+                        return;
+                    }
+                    LOGGER.log(Level.INFO, "Job #" + job.id + " on " + printerName + " failed, retrying in "
+                            + backoff + " ms", e);
+                    fire(job);
+                    try {
+                        Thread.sleep(backoff);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        finish(job, State.FAILED);
+                        return;
+                    }
+                    backoff *= 2;
+                } catch (Error e) {
+                    // e.g. OutOfMemoryError rasterizing a PDF, LinkageError from a driver: not worth retrying
+                    job.error = e.toString();
+                    LOGGER.log(Level.SEVERE, "Job #" + job.id + " on " + printerName + " failed", e);
+                    finish(job, State.FAILED);
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void finish(Job job, State state) {
+        job.finishedAt = System.currentTimeMillis();
+        job.state = state;
+        (state == State.DONE ? DONE : FAILED).incrementAndGet();
+        TOTAL_WAIT_MS.addAndGet(job.getWaitMs());
+        TOTAL_PRINT_MS.addAndGet(job.getPrintMs());
+        LOGGER.info("Job #" + job.id + " " + state + " on " + job.getPrinterName() + " (waited "
+                + job.getWaitMs() + " ms, printed in " + job.getPrintMs() + " ms)");
+        fire(job);
+        job.completion.complete(job);
+    }
+
+    private static void fire(Job job) {
+        for (Consumer<Job> l : LISTENERS) {
+            try {
+                l.accept(job);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Print listener failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package util;
+
+import application.AppConfig;
+
+import javax.print.PrintService;
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * PrinterRegistry - installed printers, discovered in the background and cached.
+ *
+ * Enumerating print services asks the OS spooler (and, for receipt printers, each driver) and can
+ * take a second or more, so it is done at startup and every few minutes on a daemon thread; the
+ * printer dialogs read the cached lists instantly. The printer last used for bills and for
+ * receipts is remembered in this workstation's settings and offered as the default.
+ *
+ * Settings (AppConfig):
+ *  - printers.refresh.minutes: background re-discovery interval, default 5 (0 = startup only)
+ *  - printer.last / printer.last.receipt: last chosen printers (written by remember...())
+ */
+public final class PrinterRegistry {
+
+    private static final Logger LOGGER = Logger.getLogger(PrinterRegistry.class.getName());
+
+    public static final String KEY_REFRESH_MINUTES = "printers.refresh.minutes";
+    public static final String KEY_LAST = "printer.last";
+    public static final String KEY_LAST_RECEIPT = "printer.last.receipt";
+
+    /** One discovery result: all services, and those accepting raw ESC/POS bytes. */
+    private record Snapshot(PrintService[] all, PrintService[] raw) {}
+
+    private static final Snapshot EMPTY = new Snapshot(new PrintService[0], new PrintService[0]);
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "printer-discovery");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static volatile Snapshot snapshot;
+    private static volatile CompletableFuture<Void> pending;
+    private static boolean started;
+
+    private PrinterRegistry() {}
+
+    /**
+     * Begin discovery and schedule periodic refreshes. Called once from Main; safe to repeat.
+     */
+    public static synchronized void start() {
+        if (started) return;
+        started = true;
+        refresh();
+        long minutes = AppConfig.getLong(KEY_REFRESH_MINUTES, 5);
+        if (minutes > 0) {
+            SCHEDULER.scheduleWithFixedDelay(PrinterRegistry::refresh, minutes, minutes, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Re-discover printers in the background (e.g. after plugging one in). Concurrent calls share
+     * one discovery; the returned future completes when the cache has been updated.
+     */
+    public static synchronized CompletableFuture<Void> refresh() {
+        CompletableFuture<Void> p = pending;
+        if (p != null && !p.isDone()) return p;
+        p = CompletableFuture.runAsync(PrinterRegistry::discover, SCHEDULER);
+        pending = p;
+        return p;
+    }
+
+    /** All printers, instantly from the cache. */
+    public static PrintService[] services() {
+        return current().all().clone();
+    }
+
+    /** Printers that accept raw byte jobs (receipt printers), instantly from the cache. */
+    public static PrintService[] rawServices() {
+        return current().raw().clone();
+    }
+
+    /** Name of the printer last used for bills, or null. */
+    public static String lastUsed() {
+        return AppConfig.get(KEY_LAST, null);
+    }
+
+    /** Name of the printer last used for receipts, or null. */
+    public static String lastUsedReceipt() {
+        return AppConfig.get(KEY_LAST_RECEIPT, null);
+    }
+
+    public static void rememberLastUsed(PrintService service) {
+        remember(KEY_LAST, service);
+    }
+
+    public static void rememberLastUsedReceipt(PrintService service) {
+        remember(KEY_LAST_RECEIPT, service);
+    }
+
+    /* ================= internals ================= */
+
+    private static void remember(String key, PrintService service) {
+        if (service != null && !service.getName().equals(AppConfig.get(key, null))) {
+            AppConfig.set(key, service.getName());
+        }
+    }
+
+    /**
+     * The cached snapshot; never blocks. Before the first discovery has finished there are no
+     * printers yet (the dialogs say so and ask to try again) and discovery is made sure to run.
+     */
+    private static Snapshot current() {
+        Snapshot s = snapshot;
+        if (s != null) return s;
+        refresh(); // joins the discovery already running, if any
+        return EMPTY;
+    }
+
+    private static void discover() {
+        long start = System.nanoTime();
+        try {
+            PrintService[] all = NativePrinter.listPrintServices();
+            if (all == null) all = new PrintService[0];
+            PrintService[] raw = Arrays.stream(all)
+                    .filter(EscPosReceipt::supportsRaw)
+                    .toArray(PrintService[]::new);
+            snapshot = new Snapshot(all, raw);
+            LOGGER.info("Found " + all.length + " printer(s), " + raw.length + " raw-capable, in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (RuntimeException e) {
+            // keep the previous list; a later refresh may succeed
+            LOGGER.log(Level.WARNING, "Printer discovery failed", e);
+            if (snapshot == null) snapshot = EMPTY;
+        }
+    }
+}
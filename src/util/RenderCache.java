@@ -0,0 +1,294 @@
+package util;
+
+import application.AppConfig;
+import application.DBConnection;
+import dao.BillDAO;
+import dao.StorageProvider;
+import model.Bill;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * RenderCache - rendered bills (PDF bytes, ESC/POS receipts) kept on disk for reprints and re-exports.
+ *
+ * Saved bills never change, so a rendering is identified by what produced it: output kind, bill id,
+ * the bill's stored content hash (bill_hash, see BillHashChain), the renderer's TEMPLATE_VERSION and
+ * its options (shop name, paper width...). The SHA-256 of that key names the file under
+ * <app data>/render-cache, so a template change, or another bill under a reused id (e.g. after a
+ * restore into a fresh database), simply stops matching old files. A hit is a one-row hash lookup
+ * and one file read: no layout, no PDF writing. A bill without a stored hash is not cached.
+ *
+ * The folder is capped (render.cache.mb, default 200) and evicted least-recently-used first;
+ * use is tracked in memory and in each file's modified time, so the order survives restarts.
+ * Only active for the database backends (in-memory bills do not survive a restart).
+ */
+public final class RenderCache {
+
+    private static final Logger LOGGER = Logger.getLogger(RenderCache.class.getName());
+
+    public static final String KEY_MAX_MB = "render.cache.mb";
+    public static final String KEY_PRERENDER = "render.cache.prerender";
+
+    private static final String DIR_NAME = "render-cache";
+
+    /** What was rendered; ext is the cache file extension. */
+    public enum Kind {
+        PDF("pdf"), RECEIPT("bin");
+
+        private final String ext;
+
+        Kind(String ext) {
+            this.ext = ext;
+        }
+    }
+
+    /** Produces the bytes on a cache miss. */
+    @FunctionalInterface
+    public interface Renderer {
+        byte[] render() throws IOException, SQLException;
+    }
+
+    // file name -> size, in access order (eldest = least recently used)
+    private static final LinkedHashMap<String, Long> INDEX = new LinkedHashMap<>(64, 0.75f, true);
+    private static long totalBytes;
+    private static Path dir;
+
+    private static ExecutorService prerenderer;
+
+    private RenderCache() {}
+
+    /* ================= PUBLIC API ================= */
+
+    /**
+     * Cached bytes for (kind, billId, variant) of the bill as stored now, or render, store and return them.
+     * variant must capture every option that changes the output, template version included.
+     */
+    public static byte[] getOrRender(Kind kind, int billId, String variant, Renderer renderer) throws IOException, SQLException {
+        Path d = dir();
+        if (d == null) return renderer.render();
+        String identity = new BillDAO().getBillHash(billId);
+        if (identity == null) return renderer.render(); // not hashed (yet): nothing safe to key on
+
+        String name = fileName(kind, billId, identity, variant);
+        Path file = d.resolve(name);
+        byte[] cached = read(file, name);
+        if (cached != null) return cached;
+
+        byte[] data = renderer.render();
+        write(file, name, data);
+        return data;
+    }
+
+    /**
+     * Render the usual outputs of a freshly saved bill in the background, so the first print or
+     * export is already a cache hit. Errors are only logged.
+     */
+    public static void prerender(int billId) {
+        if (dir() == null || !AppConfig.getBoolean(KEY_PRERENDER, true)) return;
+        prerenderer().submit(() -> {
+            try {
+                Bill bill = new BillDAO().getBillById(billId);
+                if (bill == null) return;
+                PDFRenderContext ctx = PDFRenderContext.shared(BillLayout.DEFAULT_SHOP);
+                pdf(bill, ctx);
+                receipt(bill, BillLayout.DEFAULT_SHOP);
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Pre-rendering bill #" + billId + " failed", e);
+            }
+        });
+    }
+
+    /**
+     * Write the PDF of bill billId (default shop layout) to target, in the background after any
+     * pre-render already queued for it, so it is usually a cache hit. The future fails with the
+     * render or write error.
+     */
+    public static CompletableFuture<Void> exportPdf(int billId, Path target) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        prerenderer().submit(() -> {
+            try {
+                Files.write(target, pdf(billId, PDFRenderContext.shared(BillLayout.DEFAULT_SHOP)));
+                done.complete(null);
+            } catch (Throwable e) {
+                LOGGER.log(Level.WARNING, "Exporting bill #" + billId + " to " + target + " failed", e);
+                done.completeExceptionally(e);
+            }
+        });
+        return done;
+    }
+
+    /** PDF bytes of bill rendered with ctx, from the cache when possible. */
+    public static byte[] pdf(Bill bill, PDFRenderContext ctx) throws IOException, SQLException {
+        return getOrRender(Kind.PDF, bill.getId(), PDFGenerator.cacheVariant(ctx), () -> PDFGenerator.toBytes(bill, ctx));
+    }
+
+    /** PDF bytes of bill billId, loading the bill only on a cache miss. */
+    public static byte[] pdf(int billId, PDFRenderContext ctx) throws IOException, SQLException {
+        return getOrRender(Kind.PDF, billId, PDFGenerator.cacheVariant(ctx), () -> PDFGenerator.toBytes(load(billId), ctx));
+    }
+
+    /** Receipt bytes of bill with the configured receipt settings, from the cache when possible. */
+    public static byte[] receipt(Bill bill, String shopName) throws IOException, SQLException {
+        return getOrRender(Kind.RECEIPT, bill.getId(), EscPosReceipt.cacheVariant(shopName), () -> EscPosReceipt.render(bill, shopName));
+    }
+
+    /** Receipt bytes of bill billId, loading the bill only on a cache miss. */
+    public static byte[] receipt(int billId, String shopName) throws IOException, SQLException {
+        return getOrRender(Kind.RECEIPT, billId, EscPosReceipt.cacheVariant(shopName), () -> EscPosReceipt.render(load(billId), shopName));
+    }
+
+    /** Cache size in bytes (for diagnostics). */
+    public static synchronized long sizeBytes() {
+        dir();
+        return totalBytes;
+    }
+
+    /* ================= internals ================= */
+
+    private static Bill load(int billId) throws SQLException, IOException {
+        Bill bill = new BillDAO().getBillById(billId);
+        if (bill == null) throw new IOException("Bill #" + billId + " not found");
+        return bill;
+    }
+
+    /** Cache folder, scanned into the index on first use; null when caching is off. */
+    private static synchronized Path dir() {
+        if (dir != null) return dir;
+        if (!StorageProvider.usesDatabase() || maxBytes() <= 0) return null;
+        try {
+            Path d = DBConnection.getAppDataDir().resolve(DIR_NAME);
+            Files.createDirectories(d);
+            // rebuild LRU order from modified times (oldest first)
+            try (Stream<Path> files = Files.list(d)) {
+                files.filter(Files::isRegularFile)
+                        .filter(p -> !isLeftoverTemp(p))
+                        .sorted((a, b) -> lastModified(a).compareTo(lastModified(b)))
+                        .forEach(p -> {
+                            long size = p.toFile().length();
+                            INDEX.put(p.getFileName().toString(), size);
+                            totalBytes += size;
+                        });
+            }
+            dir = d;
+            evict();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Render cache disabled", e);
+        }
+        return dir;
+    }
+
+    private static byte[] read(Path file, String name) {
+        synchronized (RenderCache.class) {
+            if (INDEX.get(name) == null) return null;   // also marks it most recently used
+        }
+        try {
+            byte[] data = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return data;
+        } catch (IOException e) {
+            // deleted behind our back or unreadable: treat as a miss
+            synchronized (RenderCache.class) {
+                Long size = INDEX.remove(name);
+                if (size != null) totalBytes -= size;
+            }
+            return null;
+        }
+    }
+
+    private static void write(Path file, String name, byte[] data) {
+        try {
+            Path tmp = Files.createTempFile(file.getParent(), name, ".tmp");
+            Files.write(tmp, data);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not cache " + name, e);
+            return;
+        }
+        synchronized (RenderCache.class) {
+            Long old = INDEX.put(name, (long) data.length);
+            totalBytes += data.length - (old != null ? old : 0);
+            evict();
+        }
+    }
+
+    /** Drop least recently used files until under the cap. Caller holds the class lock. */
+    private static void evict() {
+        long max = maxBytes();
+        Iterator<Map.Entry<String, Long>> it = INDEX.entrySet().iterator();
+        while (totalBytes > max && it.hasNext()) {
+            Map.Entry<String, Long> e = it.next();
+            try {
+                Files.deleteIfExists(dir.resolve(e.getKey()));
+            } catch (IOException ex) {
+                LOGGER.log(Level.FINE, "Could not evict " + e.getKey(), ex);
+            }
+            totalBytes -= e.getValue();
+            it.remove();
+        }
+    }
+
+    private static long maxBytes() {
+        return AppConfig.getLong(KEY_MAX_MB, 200) * 1024 * 1024;
+    }
+
+    /** "<billId>-<sha256 of the key>.<ext>": readable, yet any key change gives a new name. */
+    private static String fileName(Kind kind, int billId, String identity, String variant) {
+        String key = kind + "\n" + billId + "\n" + identity + "\n" + variant;
+        try {
+            byte[] h = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(48).append(billId).append('-');
+            for (int i = 0; i < 12; i++) {
+                sb.append(Character.forDigit((h[i] >> 4) & 0xF, 16)).append(Character.forDigit(h[i] & 0xF, 16));
+            }
+            return sb.append('.').append(kind.ext).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /** Temp file of a write that never finished (crash, power cut): delete it. */
+    private static boolean isLeftoverTemp(Path p) {
+        if (!p.getFileName().toString().endsWith(".tmp")) return false;
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Could not delete " + p, e);
+        }
+        return true;
+    }
+
+    private static FileTime lastModified(Path p) {
+        try {
+            return Files.getLastModifiedTime(p);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static synchronized ExecutorService prerenderer() {
+        if (prerenderer == null) {
+            prerenderer = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "prerender");
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            });
+        }
+        return prerenderer;
+    }
+}
@@ -6,17 +6,89 @@ import javafx.scene.Scene;
 import javafx.stage.Stage;
 
 import java.net.URL;
-import java.util.Objects;
-
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * SceneManager - switches the primary stage between screens.
+ *
+ * Screens whose controller implements {@link Reusable} are loaded once and kept: navigating back
+ * to them only calls reset() and swaps the Scene in, no FXML parsing. preload() loads them on a
+ * background thread at startup, so even the first visit is instant (reset() also runs on the first
+ * visit to a preloaded screen, as its data was read at startup). Screens without the hook are
+ * loaded fresh on every visit (a preloaded copy is used once). FXML locations are resolved once.
+ */
 public class SceneManager {
 
+    private static final Logger LOGGER = Logger.getLogger(SceneManager.class.getName());
+
+    /**
+     * Controller of a screen that can be cached. reset() runs every time the screen is shown
+     * again and must bring it to the state a freshly loaded screen would have.
+     */
+    public interface Reusable {
+        void reset();
+    }
+
+    /** A loaded screen; the Scene is created on first show (on the FX thread). */
+    private static final class Screen {
+        final Parent root;
+        final Object controller;
+        Scene scene;
+        // loaded ahead of time or shown before: reset() before it is shown (again)
+        boolean stale;
+
+        Screen(Parent root, Object controller, boolean stale) {
+            this.root = root;
+            this.controller = controller;
+            this.stale = stale;
+        }
+    }
+
     private static Stage primaryStage;
     private static final String STYLESHEET = "/styles/styles.css"; // classpath path
 
+    // name -> resolved URL (misses are not cached: nothing to speed up there)
+    private static final Map<String, URL> LOCATIONS = new ConcurrentHashMap<>();
+    // name -> screen being loaded or loaded; shared by the preloader and the FX thread
+    private static final Map<String, CompletableFuture<Screen>> SCREENS = new ConcurrentHashMap<>();
+
+    private static String stylesheet;
+
     public static void setPrimaryStage(Stage stage) {
         primaryStage = stage;
     }
 
+    /**
+     * Load the given screens on a daemon thread, in order, ready for their first showScene().
+     * Safe to call while screens are being shown: a screen is never loaded twice.
+     * The returned future completes when all of them have been tried.
+     */
+    public static CompletableFuture<Void> preload(String... fxmlFileNames) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Thread t = new Thread(() -> {
+            long start = System.nanoTime();
+            for (String name : fxmlFileNames) {
+                try {
+                    screen(name, true).join();
+                } catch (CompletionException e) {
+                    // shown as usual (loaded on the FX thread) when first navigated to
+                    LOGGER.warning("SceneManager: could not preload " + name + ": " + e.getCause());
+                }
+            }
+            LOGGER.info("SceneManager: preloaded " + fxmlFileNames.length + " screen(s) in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+            done.complete(null);
+        }, "scene-preload");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        t.start();
+        return done;
+    }
+
     /**
      * Show a scene by FXML filename. Works in IDE and when resources are packaged inside the JAR.
      * Tries multiple classpath locations so packaging layout differences won't break it.
@@ -26,73 +98,123 @@ public class SceneManager {
      *   SceneManager.showScene("fxml/MainMenu.fxml"); // also supported
      */
     public static void showScene(String fxmlFileName) {
+        show(fxmlFileName);
+    }
+
+    /**
+     * Show the view-bill scene and provide the bill id to the controller (if controller supports it).
+     */
+    public static void showViewBill(int billId) {
+        Object ctrl = show("ViewBill.fxml");
+        if (ctrl instanceof controller.ViewBillController) {
+            ((controller.ViewBillController) ctrl).loadBill(billId);
+        }
+    }
+
+    /** Put the screen on the stage; returns its controller, or null if it could not be shown. */
+    private static Object show(String fxmlFileName) {
         if (primaryStage == null) {
             System.err.println("SceneManager: primaryStage is null.");
-            return;
+            return null;
         }
 
         try {
-            URL location = resolveFxmlResource(fxmlFileName);
-            if (location == null) {
+            Screen s = take(fxmlFileName);
+            if (s == null) {
                 System.err.println("FXML file not found in classpath: " + fxmlFileName);
-                return;
+                return null;
             }
 
-            Parent root = FXMLLoader.load(location);
-            Scene scene = new Scene(root);
-
-            // Load CSS from classpath (if present)
-            URL cssLocation = SceneManager.class.getResource(STYLESHEET);
-            if (cssLocation != null) {
-                scene.getStylesheets().add(cssLocation.toExternalForm());
+            if (s.stale && s.controller instanceof Reusable) {
+                ((Reusable) s.controller).reset();
+            }
+            s.stale = true;
+
+            if (s.scene == null) {
+                s.scene = new Scene(s.root);
+                // Load CSS from classpath (if present)
+                String css = stylesheet();
+                if (css != null) {
+                    s.scene.getStylesheets().add(css);
+                }
             }
 
-            primaryStage.setScene(scene);
+            primaryStage.setScene(s.scene);
+            return s.controller;
 
         } catch (Exception e) {
             System.err.println("Failed to load scene: " + fxmlFileName);
             e.printStackTrace();
+            return null;
         }
     }
 
     /**
-     * Show the view-bill scene and provide the bill id to the controller (if controller supports it).
+     * The screen to show: cached/preloaded if available (waiting for a preload in progress),
+     * loaded now otherwise. Screens that are not Reusable are handed out only once.
      */
-    public static void showViewBill(int billId) {
-        if (primaryStage == null) return;
+    private static Screen take(String name) {
+        Screen s;
+        try {
+            s = screen(name, false).join();
+        } catch (CompletionException e) {
+            // preload failed (e.g. an initialize() that needs the FX thread): load here instead
+            s = screen(name, false).join();
+        }
+        if (s != null && !(s.controller instanceof Reusable)) {
+            SCREENS.remove(name);
+        }
+        return s;
+    }
+
+    /**
+     * Future of the screen, loading it on the calling thread if nobody has started it yet.
+     * A failed load is removed again so a later call can retry. A screen loaded by the preloader
+     * is marked stale: its initialize() read data long before the screen is first shown.
+     */
+    private static CompletableFuture<Screen> screen(String name, boolean preloading) {
+        CompletableFuture<Screen> created = new CompletableFuture<>();
+        CompletableFuture<Screen> existing = SCREENS.putIfAbsent(name, created);
+        if (existing != null) return existing;
 
         try {
-            URL location = resolveFxmlResource("ViewBill.fxml");
+            URL location = resolveFxmlResource(name);
             if (location == null) {
-                System.err.println("FXML file not found in classpath: ViewBill.fxml");
-                return;
+                SCREENS.remove(name, created);
+                created.complete(null);
+                return created;
             }
-
             FXMLLoader loader = new FXMLLoader(location);
             Parent root = loader.load();
+            created.complete(new Screen(root, loader.getController(), preloading));
+        } catch (Exception | Error e) {
+            SCREENS.remove(name, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
 
-            Object ctrl = loader.getController();
-            if (ctrl instanceof controller.ViewBillController) {
-                ((controller.ViewBillController) ctrl).loadBill(billId);
-            }
-
-            Scene scene = new Scene(root);
+    private static String stylesheet() {
+        if (stylesheet == null) {
             URL cssLocation = SceneManager.class.getResource(STYLESHEET);
-            if (cssLocation != null) {
-                scene.getStylesheets().add(cssLocation.toExternalForm());
-            }
-            primaryStage.setScene(scene);
-
-        } catch (Exception e) {
-            e.printStackTrace();
+            stylesheet = cssLocation == null ? "" : cssLocation.toExternalForm();
         }
+        return stylesheet.isEmpty() ? null : stylesheet;
     }
 
     /**
      * Resolve an FXML resource from the classpath by trying a few common locations.
-     * Returns the URL to pass to FXMLLoader, or null if not found.
+     * Returns the URL to pass to FXMLLoader, or null if not found. Found URLs are remembered.
      */
     private static URL resolveFxmlResource(String name) {
+        URL known = LOCATIONS.get(name);
+        if (known != null) return known;
+        URL u = probe(name);
+        if (u != null) LOCATIONS.put(name, u);
+        return u;
+    }
+
+    private static URL probe(String name) {
         // Normalize name if caller passed "fxml/MainMenu.fxml" or "MainMenu.fxml"
         String base = name.startsWith("/") ? name.substring(1) : name;
 
@@ -0,0 +1,84 @@
+package util;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+
+import java.util.Comparator;
+
+/**
+ * TextRow - a read-only table row whose cell texts are formatted once, when the row is built.
+ *
+ * The row is also its own cell value: a constant ObservableValue (it never changes, so listeners
+ * are never called and need not be kept). Columns set up with bind() render a cell by an array
+ * lookup: no property object, no String, no reflection per cell update, so scrolling through tens
+ * of thousands of rows creates no garbage. Build rows off the FX thread when results are loaded.
+ */
+public final class TextRow<T> implements ObservableValue<TextRow<T>> {
+
+    private final T item;
+    private final String[] texts;
+
+    public TextRow(T item, String... texts) {
+        this.item = item;
+        this.texts = texts;
+    }
+
+    /** The model object shown in this row. */
+    public T item() {
+        return item;
+    }
+
+    public String text(int column) {
+        return texts[column];
+    }
+
+    /**
+     * Show text(index) in column. Sorting follows the text unless a comparator of the
+     * underlying items is given (e.g. numeric order for ids and amounts).
+     */
+    public static <T> void bind(TableColumn<TextRow<T>, TextRow<T>> column, int index) {
+        bind(column, index, null);
+    }
+
+    public static <T> void bind(TableColumn<TextRow<T>, TextRow<T>> column, int index, Comparator<? super T> order) {
+        column.setCellValueFactory(TableColumn.CellDataFeatures::getValue);
+        column.setCellFactory(col -> new TableCell<>() {
+            @Override
+            protected void updateItem(TextRow<T> row, boolean empty) {
+                super.updateItem(row, empty);
+                setText(empty || row == null ? null : row.texts[index]);
+            }
+        });
+        column.setComparator(order != null
+                ? (a, b) -> order.compare(a.item, b.item)
+                : (a, b) -> a.texts[index].compareTo(b.texts[index]));
+    }
+
+    /* ================= constant ObservableValue ================= */
+
+    @Override
+    public TextRow<T> getValue() {
+        return this;
+    }
+
+    @Override
+    public void addListener(ChangeListener<? super TextRow<T>> listener) {
+        // never changes
+    }
+
+    @Override
+    public void removeListener(ChangeListener<? super TextRow<T>> listener) {
+    }
+
+    @Override
+    public void addListener(InvalidationListener listener) {
+        // never changes
+    }
+
+    @Override
+    public void removeListener(InvalidationListener listener) {
+    }
+}